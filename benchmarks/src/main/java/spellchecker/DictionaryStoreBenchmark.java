@@ -0,0 +1,147 @@
+package spellchecker;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import spellchecker.benchmarks.SyntheticDictionary;
+
+/**
+ * Membership checks against the {@link AVLTree} the dictionary used to be stored in and against the
+ * {@link CompactDictionary} that replaced it, both by binary search and through the {@link WordHashIndex}
+ * that {@code checkWord} uses. The stores are package-private, so this benchmark lives in their package.
+ *
+ * <p>Its {@link #main} reports the heap each store retains for the same words instead:
+ * {@code java -Xms4g -Xmx4g -cp benchmarks/target/benchmarks.jar spellchecker.DictionaryStoreBenchmark 400000}</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class DictionaryStoreBenchmark {
+
+    private static final int WORDS = 1024;
+
+    @Param({"10000", "100000", "500000"})
+    public int dictionarySize;
+
+    private AVLTree<String> tree;
+    private CompactDictionary dictionary;
+    private WordHashIndex hashIndex;
+    private String[] hits;
+    private String[] misses;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SyntheticDictionary synthetic = new SyntheticDictionary(dictionarySize, 42);
+        String[] words = synthetic.words();
+        tree = buildTree(words);
+        dictionary = CompactDictionary.of(Arrays.asList(words));
+        hashIndex = new WordHashIndex(dictionary);
+        hits = synthetic.hits(WORDS);
+        misses = synthetic.misses(WORDS);
+    }
+
+    @Benchmark
+    public boolean avlTreeHit() {
+        return tree.contains(hits[next++ & (WORDS - 1)], null);
+    }
+
+    @Benchmark
+    public boolean avlTreeMiss() {
+        return tree.contains(misses[next++ & (WORDS - 1)], null);
+    }
+
+    @Benchmark
+    public boolean compactHit() {
+        return dictionary.contains(hits[next++ & (WORDS - 1)]);
+    }
+
+    @Benchmark
+    public boolean compactMiss() {
+        return dictionary.contains(misses[next++ & (WORDS - 1)]);
+    }
+
+    @Benchmark
+    public int hashIndexHit() {
+        return hashIndex.indexOf(hits[next++ & (WORDS - 1)]);
+    }
+
+    @Benchmark
+    public int hashIndexMiss() {
+        return hashIndex.indexOf(misses[next++ & (WORDS - 1)]);
+    }
+
+    private static AVLTree<String> buildTree(String[] words) {
+        AVLTree<String> tree = new AVLTree<>();
+        for (String word : words) {
+            tree.insert(word);
+        }
+        return tree;
+    }
+
+    // Kept reachable while the heap is measured
+    private static Object[] retained;
+
+    /**
+     * Print the heap retained by each store for one synthetic dictionary.
+     * @param args the dictionary size, 400000 unless given.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 400000;
+        String[] words = new SyntheticDictionary(size, 42).words();
+        // The stores are built one after the other and all kept, so each one is measured as the growth of the heap
+        // while nothing is freed. Only the tree holds on to the word Strings, so it is given copies of them with
+        // their own chars.
+        retained = new Object[3];
+        long before = usedHeapAfterGc();
+        String[] copies = Arrays.stream(words).map(word -> new String(word.toCharArray())).toArray(String[]::new);
+        retained[0] = buildTree(copies);
+        copies = null;
+        long afterTree = usedHeapAfterGc();
+        CompactDictionary compact = CompactDictionary.of(Arrays.asList(words));
+        retained[1] = compact;
+        long afterCompact = usedHeapAfterGc();
+        retained[2] = new WordHashIndex(compact);
+        long afterHashIndex = usedHeapAfterGc();
+
+        long treeBytes = afterTree - before;
+        long compactBytes = afterCompact - afterTree;
+        long hashIndexBytes = afterHashIndex - afterCompact;
+        System.out.printf("Dictionary:        %,d words%n", size);
+        System.out.printf("AVLTree:           %,.1f MB (%,d bytes per word)%n", treeBytes / 1e6, treeBytes / size);
+        System.out.printf("CompactDictionary: %,.1f MB (%,d bytes per word)%n", compactBytes / 1e6,
+                compactBytes / size);
+        System.out.printf("WordHashIndex:     %,.1f MB (%,d bytes per word)%n", hashIndexBytes / 1e6,
+                hashIndexBytes / size);
+    }
+
+    // Collect until the heap in use stops shrinking; the first collections after a load do not always free
+    // all of its garbage
+    private static long usedHeapAfterGc() throws InterruptedException {
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            Thread.sleep(100);
+            long now = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            if (now >= used) {
+                return now;
+            }
+            used = now;
+        }
+        return used;
+    }
+}
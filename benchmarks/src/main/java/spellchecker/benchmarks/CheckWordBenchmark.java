@@ -0,0 +1,58 @@
+package spellchecker.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import spellchecker.SpellChecker;
+
+/**
+ * Membership checks of words that are in the dictionary (hits) and words one edit away from one (misses).
+ * Each invocation checks the next word of a fixed rotation, so the branch predictor cannot learn the answer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class CheckWordBenchmark {
+
+    private static final int WORDS = 1024;
+
+    @Param({"10000", "100000", "500000"})
+    public int dictionarySize;
+
+    private SpellChecker spellChecker;
+    private String[] hits;
+    private String[] misses;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        SyntheticDictionary dictionary = new SyntheticDictionary(dictionarySize, 42);
+        spellChecker = new SpellChecker(3);
+        spellChecker.loadDictionary(dictionary.writeTemporaryFile().toString());
+        hits = dictionary.hits(WORDS);
+        misses = dictionary.misses(WORDS);
+    }
+
+    @Benchmark
+    public boolean checkWordHit() {
+        return spellChecker.checkWord(hits[next++ & (WORDS - 1)]);
+    }
+
+    @Benchmark
+    public boolean checkWordMiss() {
+        return spellChecker.checkWord(misses[next++ & (WORDS - 1)]);
+    }
+}
@@ -0,0 +1,120 @@
+package spellchecker.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import spellchecker.SpellChecker;
+
+/**
+ * Throughput of one spell checker shared by many threads. {@code checkWord} and {@code suggestCorrections}
+ * run on as many threads as there are processors by default; run them again with {@code -t 1} and, for
+ * example, {@code -t 32} to see how they scale. The {@code mixed} group checks and suggests while another
+ * thread keeps adding and removing words, so readers run against a dictionary being republished.
+ * The suggestion cache is disabled, so every suggestion is computed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ConcurrentBenchmark {
+
+    private static final int WORDS = 1024;
+
+    @Param({"100000"})
+    public int dictionarySize;
+
+    @Param({"5"})
+    public int maxSuggestions;
+
+    private SpellChecker spellChecker;
+    private String[] hits;
+    private String[] misses;
+    private String[] misspellings;
+    private String[] additions;
+
+    @Setup
+    public void setUp() throws IOException {
+        SyntheticDictionary dictionary = new SyntheticDictionary(dictionarySize, 42);
+        spellChecker = new SpellChecker(3, 2, ForkJoinPool.commonPool(),
+                ForkJoinPool.getCommonPoolParallelism() + 1, 0);
+        spellChecker.loadDictionary(dictionary.writeTemporaryFile().toString());
+        hits = dictionary.hits(WORDS);
+        misses = dictionary.misses(WORDS);
+        misspellings = dictionary.misspellings(8, WORDS);
+        // Words outside the dictionary that the readers never look up
+        additions = dictionary.misspellings(12, WORDS);
+    }
+
+    /**
+     * The position of one thread in the word rotations; threads start at different words.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        @Setup
+        public void setUp(ThreadParams threadParams) {
+            next = threadParams.getThreadIndex() * 97;
+        }
+
+        int next() {
+            return next++ & (WORDS - 1);
+        }
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean checkWord(Cursor cursor) {
+        int i = cursor.next();
+        return spellChecker.checkWord((i & 1) == 0 ? hits[i] : misses[i]);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public List<Map.Entry<String, Double>> suggestCorrections(Cursor cursor) {
+        return spellChecker.suggestCorrections(misspellings[cursor.next()], maxSuggestions);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public boolean mixedCheckWord(Cursor cursor) {
+        int i = cursor.next();
+        return spellChecker.checkWord((i & 1) == 0 ? hits[i] : misses[i]);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public List<Map.Entry<String, Double>> mixedSuggestCorrections(Cursor cursor) {
+        return spellChecker.suggestCorrections(misspellings[cursor.next()], maxSuggestions);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedAddAndRemoveWord(Cursor cursor) {
+        String word = additions[cursor.next()];
+        spellChecker.addWord(word);
+        spellChecker.removeWord(word);
+    }
+}
@@ -0,0 +1,97 @@
+package spellchecker.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import spellchecker.SpellChecker;
+
+/**
+ * Finding every word within an edit distance of a misspelling, through the trie walk of
+ * {@link SpellChecker#wordsWithinDistance(String, int)} and through the in-order traversal it replaces,
+ * which computes the distance to each word of the sorted dictionary from scratch. Both count an
+ * adjacent transposition as one edit and return the same words.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class FuzzySearchBenchmark {
+
+    private static final int WORDS = 256;
+
+    @Param({"100000"})
+    public int dictionarySize;
+
+    @Param({"1", "2", "3"})
+    public int maxDistance;
+
+    private SpellChecker spellChecker;
+    private String[] dictionaryWords;
+    private String[] misspellings;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        SyntheticDictionary dictionary = new SyntheticDictionary(dictionarySize, 42);
+        spellChecker = new SpellChecker(3);
+        spellChecker.loadDictionary(dictionary.writeTemporaryFile().toString());
+        dictionaryWords = dictionary.words();
+        Arrays.sort(dictionaryWords);
+        misspellings = dictionary.misses(WORDS);
+        // The trie is built on the first search, which should not be measured
+        spellChecker.wordsWithinDistance(misspellings[0], maxDistance);
+    }
+
+    @Benchmark
+    public List<String> trie() {
+        return spellChecker.wordsWithinDistance(misspellings[next++ & (WORDS - 1)], maxDistance);
+    }
+
+    @Benchmark
+    public List<String> traversal() {
+        String query = misspellings[next++ & (WORDS - 1)];
+        List<String> matches = new ArrayList<>();
+        for (String word : dictionaryWords) {
+            if (distance(query, word) <= maxDistance) {
+                matches.add(word);
+            }
+        }
+        return matches;
+    }
+
+    // The optimal string alignment distance, over the full table
+    private static int distance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + cost);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+}
@@ -0,0 +1,134 @@
+package spellchecker.benchmarks;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import spellchecker.SpellChecker;
+
+/**
+ * Reports how much heap a loaded dictionary keeps and what the garbage collector does while it is loaded
+ * and while suggestions are computed from it. A synthetic dictionary is loaded from its text file, the
+ * heap in use after a full collection is compared with the heap before loading, and the collection counts
+ * and pause times are read from the collectors' MXBeans.
+ *
+ * <p>Usage: {@code HeapReport [--dictionary-size 400000] [--n-gram-size 2] [--suggestions 1000] [--max 5]}</p>
+ *
+ * <p>Only the constructor, {@code loadDictionary} and {@code suggestCorrections} are used, so the report
+ * can be run against the classes of any version of the spell checker to compare them. Run it with a fixed
+ * heap size, such as {@code -Xms4g -Xmx4g}, so that results are comparable.</p>
+ */
+public final class HeapReport {
+
+    // Keeps the spell checker reachable while its heap is measured
+    private static SpellChecker retained;
+
+    private HeapReport() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int dictionarySize = 400000;
+        int nGramSize = 2;
+        int suggestions = 1000;
+        int max = 5;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--dictionary-size":
+                    dictionarySize = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--n-gram-size":
+                    nGramSize = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--suggestions":
+                    suggestions = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--max":
+                    max = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(1);
+            }
+        }
+
+        SyntheticDictionary dictionary = new SyntheticDictionary(dictionarySize, 42);
+        String file = dictionary.writeTemporaryFile().toString();
+        String[] misspellings = dictionary.misses(suggestions);
+
+        long heapBefore = usedHeapAfterGc();
+        GcCounts gcBefore = GcCounts.now();
+        long startTime = System.nanoTime();
+        retained = new SpellChecker(nGramSize);
+        retained.loadDictionary(file);
+        long loadNanos = System.nanoTime() - startTime;
+        GcCounts loadGcs = GcCounts.now().minus(gcBefore);
+        long heapAfter = usedHeapAfterGc();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long allocatedBefore = allocatedBytes(threads);
+        gcBefore = GcCounts.now();
+        startTime = System.nanoTime();
+        for (String word : misspellings) {
+            retained.suggestCorrections(word, max);
+        }
+        long suggestNanos = System.nanoTime() - startTime;
+        GcCounts suggestGcs = GcCounts.now().minus(gcBefore);
+        long allocated = allocatedBytes(threads) - allocatedBefore;
+
+        long retainedBytes = heapAfter - heapBefore;
+        System.out.printf("Dictionary:        %,d words, %d-grams%n", dictionarySize, nGramSize);
+        System.out.printf("Retained heap:     %,.1f MB (%,d bytes per word)%n",
+                retainedBytes / 1e6, retainedBytes / dictionarySize);
+        System.out.printf("Load:              %,d ms, %s%n", loadNanos / 1_000_000, loadGcs);
+        System.out.printf("Suggestions:       %,d in %,d ms, %s%n", suggestions, suggestNanos / 1_000_000, suggestGcs);
+        if (allocated >= 0) {
+            System.out.printf("Allocated:         %,d bytes per suggestion%n", allocated / Math.max(1, suggestions));
+        }
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    // The bytes allocated by this thread, or -1 if the JVM does not count them
+    private static long allocatedBytes(ThreadMXBean threads) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static final class GcCounts {
+        private final long collections;
+        private final long millis;
+
+        private GcCounts(long collections, long millis) {
+            this.collections = collections;
+            this.millis = millis;
+        }
+
+        static GcCounts now() {
+            long collections = 0;
+            long millis = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                collections += Math.max(0, collector.getCollectionCount());
+                millis += Math.max(0, collector.getCollectionTime());
+            }
+            return new GcCounts(collections, millis);
+        }
+
+        GcCounts minus(GcCounts other) {
+            return new GcCounts(collections - other.collections, millis - other.millis);
+        }
+
+        @Override
+        public String toString() {
+            return collections + " collections taking " + millis + " ms";
+        }
+    }
+}
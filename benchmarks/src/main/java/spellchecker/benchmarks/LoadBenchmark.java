@@ -0,0 +1,47 @@
+package spellchecker.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import spellchecker.SpellChecker;
+
+/**
+ * Time to load a text dictionary and build every index over it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class LoadBenchmark {
+
+    @Param({"10000", "100000", "500000"})
+    public int dictionarySize;
+
+    private String dictionaryFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        Path file = new SyntheticDictionary(dictionarySize, 42).writeTemporaryFile();
+        dictionaryFile = file.toString();
+    }
+
+    @Benchmark
+    public SpellChecker loadDictionary() {
+        SpellChecker spellChecker = new SpellChecker(3);
+        spellChecker.loadDictionary(dictionaryFile);
+        return spellChecker;
+    }
+}
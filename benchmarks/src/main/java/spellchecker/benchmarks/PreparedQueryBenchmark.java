@@ -0,0 +1,87 @@
+package spellchecker.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import spellchecker.PreparedEntry;
+import spellchecker.PreparedQuery;
+import spellchecker.SpellChecker;
+import spellchecker.StringSimilarityAlgorithm;
+
+/**
+ * The cost per dictionary word of running every similarity algorithm against one query, with the query
+ * lowercased and every algorithm given plain Strings for each word, against a {@link PreparedQuery}
+ * built once and compared with {@link PreparedEntry} words. Scores are reported per word.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PreparedQueryBenchmark {
+
+    private static final int WORDS = 1024;
+
+    @Param({"4", "8", "12"})
+    public int wordLength;
+
+    private List<StringSimilarityAlgorithm> algorithms;
+    private String query;
+    private PreparedQuery preparedQuery;
+    private String[] words;
+    private PreparedEntry[] entries;
+
+    @Setup
+    public void setUp() throws IOException {
+        SyntheticDictionary dictionary = new SyntheticDictionary(20000, 42);
+        SpellChecker spellChecker = new SpellChecker(3);
+        spellChecker.loadDictionary(dictionary.writeTemporaryFile().toString());
+        algorithms = spellChecker.getSimilarityAlgorithms();
+
+        query = dictionary.misspellings(wordLength, 1)[0].toUpperCase();
+        preparedQuery = spellChecker.prepare(query);
+        words = dictionary.hits(wordLength, WORDS);
+        entries = new PreparedEntry[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            entries[i] = new PreparedEntry(words[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WORDS)
+    public double unprepared() {
+        double total = 0;
+        for (String word : words) {
+            String normalized = query.toLowerCase();
+            for (StringSimilarityAlgorithm algorithm : algorithms) {
+                total += algorithm.calculateSimilarity(normalized, word);
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WORDS)
+    public double prepared() {
+        double total = 0;
+        for (PreparedEntry entry : entries) {
+            for (StringSimilarityAlgorithm algorithm : algorithms) {
+                total += algorithm.calculateSimilarity(preparedQuery, entry);
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,173 @@
+package spellchecker.benchmarks;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import spellchecker.SpellCheckServer;
+import spellchecker.SpellChecker;
+
+/**
+ * A closed-loop load test of {@link SpellCheckServer}: a number of clients each send single word checks
+ * to localhost back to back for a while, then the latency percentiles and the throughput are printed.
+ * Unless a URL is given, a server is started in this JVM on a synthetic dictionary.
+ *
+ * <p>Usage: {@code ServerLoadTest [--url http://localhost:8080] [--clients 16] [--seconds 30]
+ * [--words 1000] [--dictionary-size 100000] [--max 5]}</p>
+ *
+ * <p>Each request checks one of {@code --words} misspellings, drawn with a skewed distribution so
+ * that some words are far more common than others, as in real text.</p>
+ */
+public final class ServerLoadTest {
+
+    private ServerLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int clients = 16;
+        int seconds = 30;
+        int distinctWords = 1000;
+        int dictionarySize = 100000;
+        int max = 5;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--url":
+                    url = args[i + 1];
+                    break;
+                case "--clients":
+                    clients = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--words":
+                    distinctWords = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--dictionary-size":
+                    dictionarySize = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--max":
+                    max = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(1);
+            }
+        }
+
+        SyntheticDictionary dictionary = new SyntheticDictionary(dictionarySize, 42);
+        SpellCheckServer server = null;
+        if (url == null) {
+            SpellChecker spellChecker = new SpellChecker(2);
+            spellChecker.loadDictionary(dictionary.writeTemporaryFile().toString());
+            server = new SpellCheckServer(spellChecker, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            server.start();
+            url = "http://localhost:" + server.getPort();
+        }
+
+        try {
+            String[] words = dictionary.misses(distinctWords);
+            run(url, words, clients, seconds, max);
+        } finally {
+            if (server != null) {
+                server.stop(0);
+            }
+        }
+    }
+
+    private static void run(String url, String[] words, int clients, int seconds, int max)
+            throws InterruptedException, ExecutionException {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        ExecutorService threads = Executors.newFixedThreadPool(clients);
+        long startTime = System.nanoTime();
+        long deadline = startTime + seconds * 1_000_000_000L;
+
+        List<Future<Recorder>> futures = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            long seed = c;
+            futures.add(threads.submit(() -> {
+                Recorder recorder = new Recorder();
+                Random random = new Random(seed);
+                while (System.nanoTime() < deadline) {
+                    // Squaring a uniform draw favours the first words of the list
+                    double r = random.nextDouble();
+                    String word = words[(int) (r * r * words.length)];
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/check?max=" + max + "&word="
+                            + URLEncoder.encode(word, StandardCharsets.UTF_8))).GET().build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        recorder.record(System.nanoTime() - start, response.statusCode() == 200);
+                    } catch (IOException e) {
+                        recorder.record(System.nanoTime() - start, false);
+                    }
+                }
+                return recorder;
+            }));
+        }
+
+        Recorder total = new Recorder();
+        for (Future<Recorder> future : futures) {
+            total.addAll(future.get());
+        }
+        double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+        threads.shutdown();
+
+        long[] latencies = total.latencies();
+        Arrays.sort(latencies);
+        System.out.printf("clients=%d requests=%d errors=%d%n", clients, latencies.length, total.errors);
+        System.out.printf("throughput=%.0f requests/s%n", latencies.length / elapsedSeconds);
+        System.out.printf("latency p50=%.3f ms p99=%.3f ms max=%.3f ms%n", percentile(latencies, 50) / 1e6,
+                percentile(latencies, 99) / 1e6, latencies.length > 0 ? latencies[latencies.length - 1] / 1e6 : 0.0);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    // The latencies of one client, in a growable primitive array
+    private static final class Recorder {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        void record(long nanos, boolean ok) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, 2 * count);
+            }
+            latencies[count++] = nanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        void addAll(Recorder other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i], true);
+            }
+            errors += other.errors;
+        }
+
+        long[] latencies() {
+            return Arrays.copyOf(latencies, count);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package spellchecker.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import spellchecker.SpellChecker;
+import spellchecker.StringSimilarityAlgorithm;
+
+/**
+ * Each similarity algorithm on its own, comparing misspellings with the words they were made from
+ * through the public {@link StringSimilarityAlgorithm#calculateSimilarity(String, String)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimilarityAlgorithmBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    @Param({"DamerauLevenshtein", "Metaphone", "Soundex", "JaroWinkler"})
+    public String algorithmName;
+
+    @Param({"4", "8", "12"})
+    public int wordLength;
+
+    private StringSimilarityAlgorithm algorithm;
+    private String[] words;
+    private String[] misspellings;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        algorithm = algorithm(algorithmName);
+        SyntheticDictionary dictionary = new SyntheticDictionary(20000, 42);
+        words = dictionary.hits(wordLength, PAIRS);
+        misspellings = new String[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            misspellings[i] = dictionary.misspell(words[i]);
+        }
+    }
+
+    @Benchmark
+    public double calculateSimilarity() {
+        int i = next++ & (PAIRS - 1);
+        return algorithm.calculateSimilarity(words[i], misspellings[i]);
+    }
+
+    private static StringSimilarityAlgorithm algorithm(String name) {
+        switch (name) {
+            case "DamerauLevenshtein":
+                return new SpellChecker.DamerauLevenshteinAdapter();
+            case "Metaphone":
+                return new SpellChecker.MetaphoneAlgorithm();
+            case "Soundex":
+                return new SpellChecker.SoundexAlgorithm();
+            case "JaroWinkler":
+                return new SpellChecker.JaroWinklerAlgorithm();
+            default:
+                throw new IllegalArgumentException("Unknown algorithm " + name);
+        }
+    }
+}
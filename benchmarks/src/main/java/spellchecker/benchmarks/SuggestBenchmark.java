@@ -0,0 +1,61 @@
+package spellchecker.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import spellchecker.SpellChecker;
+
+/**
+ * Suggestions for misspellings of several lengths. The suggestion cache is disabled, so every
+ * invocation generates and scores its candidates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class SuggestBenchmark {
+
+    private static final int WORDS = 256;
+
+    @Param({"100000"})
+    public int dictionarySize;
+
+    @Param({"4", "8", "12"})
+    public int queryLength;
+
+    @Param({"1", "5", "20"})
+    public int maxSuggestions;
+
+    private SpellChecker spellChecker;
+    private String[] misspellings;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        SyntheticDictionary dictionary = new SyntheticDictionary(dictionarySize, 42);
+        spellChecker = new SpellChecker(3, 2, ForkJoinPool.commonPool(),
+                ForkJoinPool.getCommonPoolParallelism() + 1, 0);
+        spellChecker.loadDictionary(dictionary.writeTemporaryFile().toString());
+        misspellings = dictionary.misspellings(queryLength, WORDS);
+    }
+
+    @Benchmark
+    public List<Map.Entry<String, Double>> suggestCorrections() {
+        return spellChecker.suggestCorrections(misspellings[next++ & (WORDS - 1)], maxSuggestions);
+    }
+}
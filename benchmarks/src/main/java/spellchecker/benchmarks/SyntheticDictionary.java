@@ -0,0 +1,189 @@
+package spellchecker.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates reproducible dictionaries of made-up words, so the benchmarks need no word list on disk
+ * or network access. Letters are drawn with their frequency in English text and word lengths follow
+ * a rough English distribution, which keeps the phonetic and n-gram buckets about as crowded as
+ * with a real dictionary.
+ */
+public final class SyntheticDictionary {
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+    // Relative frequency of each letter of LETTERS in English text, in hundredths of a percent
+    private static final int[] LETTER_FREQUENCIES = {
+            817, 149, 278, 425, 1270, 223, 202, 609, 697, 15, 77, 403, 241,
+            675, 751, 193, 10, 599, 633, 906, 276, 98, 236, 15, 197, 7
+    };
+    // Relative frequency of word lengths 2 to 15
+    private static final int[] LENGTH_FREQUENCIES = {2, 6, 10, 13, 14, 14, 12, 10, 7, 5, 3, 2, 1, 1};
+    private static final int MIN_LENGTH = 2;
+
+    private final List<String> words;
+    private final Set<String> wordSet;
+    private final Random random;
+
+    /**
+     * Generate a dictionary.
+     * @param size the number of distinct words.
+     * @param seed the seed of the generator; equal seeds give equal dictionaries.
+     */
+    public SyntheticDictionary(int size, long seed) {
+        this.random = new Random(seed);
+        this.wordSet = new LinkedHashSet<>(size * 2);
+        while (wordSet.size() < size) {
+            wordSet.add(randomWord(MIN_LENGTH + pick(LENGTH_FREQUENCIES)));
+        }
+        this.words = new ArrayList<>(wordSet);
+    }
+
+    /**
+     * Write the words to a temporary text dictionary, one per line. The file is deleted when the JVM exits.
+     * @return the path of the file.
+     * @throws IOException if the file cannot be written.
+     */
+    Path writeTemporaryFile() throws IOException {
+        Path file = Files.createTempFile("synthetic-dictionary", ".txt");
+        file.toFile().deleteOnExit();
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (String word : words) {
+                writer.write(word);
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Get every word of the dictionary.
+     * @return the words, in the order they were generated.
+     */
+    public String[] words() {
+        return words.toArray(new String[0]);
+    }
+
+    /**
+     * Pick words that are in the dictionary.
+     * @param count the number of words.
+     * @return the words, drawn at random.
+     */
+    public String[] hits(int count) {
+        String[] hits = new String[count];
+        for (int i = 0; i < count; i++) {
+            hits[i] = words.get(random.nextInt(words.size()));
+        }
+        return hits;
+    }
+
+    /**
+     * Make up words that are not in the dictionary, each one edit away from a dictionary word.
+     * @param count the number of words.
+     * @return the words.
+     */
+    public String[] misses(int count) {
+        String[] misses = new String[count];
+        for (int i = 0; i < count; i++) {
+            misses[i] = misspell(words.get(random.nextInt(words.size())));
+        }
+        return misses;
+    }
+
+    /**
+     * Pick dictionary words of one length.
+     * @param length the length of the words.
+     * @param count the number of words.
+     * @return the words, drawn at random.
+     * @throws IllegalArgumentException if the dictionary has no words of that length.
+     */
+    String[] hits(int length, int count) {
+        List<String> sameLength = new ArrayList<>();
+        for (String word : words) {
+            if (word.length() == length) {
+                sameLength.add(word);
+            }
+        }
+        if (sameLength.isEmpty()) {
+            throw new IllegalArgumentException("No words of length " + length);
+        }
+
+        String[] hits = new String[count];
+        for (int i = 0; i < count; i++) {
+            hits[i] = sameLength.get(random.nextInt(sameLength.size()));
+        }
+        return hits;
+    }
+
+    /**
+     * Make up misspellings of dictionary words of one length, each one substitution or transposition
+     * away from its word so that it keeps the length.
+     * @param length the length of the words.
+     * @param count the number of words.
+     * @return the words.
+     * @throws IllegalArgumentException if the dictionary has no words of that length.
+     */
+    String[] misspellings(int length, int count) {
+        String[] misspellings = hits(length, count);
+        for (int i = 0; i < count; i++) {
+            misspellings[i] = misspell(misspellings[i]);
+        }
+        return misspellings;
+    }
+
+    /**
+     * Make up a misspelling of a word by substituting or transposing chars until it is no longer in the dictionary.
+     * @param word the word.
+     * @return the misspelling, of the same length.
+     */
+    String misspell(String word) {
+        char[] chars = word.toCharArray();
+        String misspelling;
+        do {
+            int i = random.nextInt(chars.length);
+            if (random.nextBoolean() && i + 1 < chars.length) {
+                char c = chars[i];
+                chars[i] = chars[i + 1];
+                chars[i + 1] = c;
+            } else {
+                chars[i] = randomLetter();
+            }
+            misspelling = new String(chars);
+        } while (wordSet.contains(misspelling));
+        return misspelling;
+    }
+
+    private String randomWord(int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = randomLetter();
+        }
+        return new String(chars);
+    }
+
+    private char randomLetter() {
+        return LETTERS.charAt(pick(LETTER_FREQUENCIES));
+    }
+
+    // Pick an index with probability proportional to its frequency
+    private int pick(int[] frequencies) {
+        int total = 0;
+        for (int frequency : frequencies) {
+            total += frequency;
+        }
+        int r = random.nextInt(total);
+        int i = 0;
+        while (r >= frequencies[i]) {
+            r -= frequencies[i++];
+        }
+        return i;
+    }
+}
@@ -1,5 +1,8 @@
 package spellchecker;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 /**
  * An AVL Tree data structure implementation.
  * @param <T> the type of elements stored in the tree, must be Comparable.
@@ -26,6 +29,7 @@ class AVLTree<T extends Comparable<T>> {
     }
 
     private Node root;
+    private int size;
 
     /**
      * Get the root node of the tree.
@@ -35,6 +39,14 @@ class AVLTree<T extends Comparable<T>> {
         return root;
     }
 
+    /**
+     * Get the number of elements in the tree.
+     * @return the element count.
+     */
+    public int size() {
+        return size;
+    }
+
     /**
      * Get the height of a node.
      * @param node the node to get the height of.
@@ -132,7 +144,10 @@ class AVLTree<T extends Comparable<T>> {
      * @return the new root of the subtree after insertion.
      */
     private Node insert(Node node, T data) {
-        if (node == null) return new Node(data);
+        if (node == null) {
+            size++;
+            return new Node(data);
+        }
 
         int cmp = data.compareTo(node.data);
 
@@ -150,4 +165,101 @@ class AVLTree<T extends Comparable<T>> {
         return balance(node);
     }
 
+    /**
+     * Delete an element from the AVL Tree, rebalancing on the way back up.
+     * @param data the element to delete; nothing happens if it is not in the tree.
+     */
+    public void delete(T data) {
+        root = delete(root, data);
+    }
+
+    /**
+     * Recursive helper method to delete an element from the AVL Tree.
+     * @param node the current node being considered.
+     * @param data the element to delete.
+     * @return the new root of the subtree after deletion.
+     */
+    private Node delete(Node node, T data) {
+        if (node == null) return null;
+
+        int cmp = data.compareTo(node.data);
+
+        if (cmp < 0) {
+            node.left = delete(node.left, data);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, data);
+        } else if (node.left == null || node.right == null) {
+            size--;
+            return node.left != null ? node.left : node.right;
+        } else {
+            // Replace the element with its in-order successor, then delete the successor
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.data = successor.data;
+            node.right = delete(node.right, successor.data);
+        }
+
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+
+        return balance(node);
+    }
+
+    /**
+     * Check whether the tree contains an element.
+     * @param data the element to find.
+     * @param path if not null, every element visited by the search is appended to it.
+     * @return true if the element is in the tree.
+     */
+    public boolean contains(T data, List<T> path) {
+        Node node = root;
+        while (node != null) {
+            if (path != null) {
+                path.add(node.data);
+            }
+            int cmp = data.compareTo(node.data);
+            if (cmp == 0) {
+                return true;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * Visit every element in ascending order.
+     * @param action the action to perform on each element.
+     */
+    public void inOrder(Consumer<T> action) {
+        inOrder(root, action);
+    }
+
+    private void inOrder(Node node, Consumer<T> action) {
+        if (node == null) return;
+        inOrder(node.left, action);
+        action.accept(node.data);
+        inOrder(node.right, action);
+    }
+
+    /**
+     * Create a structural copy of the tree, so the copy can be modified without affecting this tree.
+     * @return the copy.
+     */
+    public AVLTree<T> copy() {
+        AVLTree<T> copy = new AVLTree<>();
+        copy.root = copy(root);
+        copy.size = size;
+        return copy;
+    }
+
+    private Node copy(Node node) {
+        if (node == null) return null;
+        Node copy = new Node(node.data);
+        copy.height = node.height;
+        copy.left = copy(node.left);
+        copy.right = copy(node.right);
+        return copy;
+    }
+
 }
@@ -0,0 +1,55 @@
+package spellchecker;
+
+/**
+ * A point-in-time view of the counters of the suggestion cache, for sizing it.
+ */
+public final class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long entries;
+    private final long bytes;
+
+    CacheStats(long hits, long misses, long evictions, long entries, long bytes) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.entries = entries;
+        this.bytes = bytes;
+    }
+
+    // Requests answered from the cache
+    public long getHits() {
+        return hits;
+    }
+
+    // Requests that had to compute their suggestions
+    public long getMisses() {
+        return misses;
+    }
+
+    // Entries dropped to stay within the cache's size, not counting those dropped by a dictionary change
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+
+    // The estimated heap size of the cached entries
+    public long getBytes() {
+        return bytes;
+    }
+
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests > 0 ? (double) hits / requests : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d (%.1f%% hit rate) evictions=%d entries=%d bytes=%d",
+                hits, misses, 100 * getHitRate(), evictions, entries, bytes);
+    }
+}
@@ -0,0 +1,193 @@
+package spellchecker;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A read-only, sorted set of words packed into a single char buffer with an offset table.
+ * Word ids are the positions of the words in sorted order. Compared with {@link AVLTree}, there is
+ * no per-word node or String object, and a lookup is a binary search over two flat buffers.
+ * The buffers either wrap heap arrays or are views of a memory-mapped {@link DictionaryImage}.
+ */
+final class CompactDictionary {
+
+    private final CharBuffer chars;
+    private final IntBuffer offsets;
+
+    private CompactDictionary(CharBuffer chars, IntBuffer offsets) {
+        this.chars = chars;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Read a dictionary previously written with {@link #write(DictionaryImage.Writer)}.
+     * @param reader the image being read.
+     * @return the dictionary, backed by the image.
+     */
+    static CompactDictionary read(DictionaryImage.Reader reader) throws IOException {
+        return new CompactDictionary(reader.readChars(), reader.readInts());
+    }
+
+    /**
+     * Write the dictionary into a dictionary image.
+     * @param writer the image being written.
+     */
+    void write(DictionaryImage.Writer writer) throws IOException {
+        writer.writeChars(chars);
+        writer.writeInts(offsets);
+    }
+
+    /**
+     * Build a dictionary from a collection of words. The words are sorted and duplicates are dropped.
+     * @param words the words to store.
+     * @return the packed dictionary.
+     */
+    static CompactDictionary of(Collection<String> words) {
+        String[] sorted = words.toArray(new String[0]);
+        Arrays.sort(sorted);
+
+        int count = 0;
+        long totalLength = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || !sorted[i].equals(sorted[count - 1])) {
+                sorted[count++] = sorted[i];
+                totalLength += sorted[i].length();
+            }
+        }
+        if (totalLength > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Dictionary is too large to pack: " + totalLength + " characters");
+        }
+
+        char[] chars = new char[(int) totalLength];
+        int[] offsets = new int[count + 1];
+        int position = 0;
+        for (int id = 0; id < count; id++) {
+            offsets[id] = position;
+            sorted[id].getChars(0, sorted[id].length(), chars, position);
+            position += sorted[id].length();
+        }
+        offsets[count] = position;
+        return new CompactDictionary(CharBuffer.wrap(chars), IntBuffer.wrap(offsets));
+    }
+
+    /**
+     * Get the number of words in the dictionary.
+     * @return the word count.
+     */
+    int size() {
+        return offsets.limit() - 1;
+    }
+
+    /**
+     * Get the length of a word without materializing it.
+     * @param id the word id.
+     * @return the length of the word.
+     */
+    int length(int id) {
+        return offsets.get(id + 1) - offsets.get(id);
+    }
+
+    /**
+     * Materialize a word as a String.
+     * @param id the word id.
+     * @return the word.
+     */
+    String word(int id) {
+        char[] word = new char[length(id)];
+        copyChars(id, word);
+        return new String(word);
+    }
+
+    /**
+     * Copy the chars of a word into a buffer, so it can be compared without creating a String.
+     * @param id the word id.
+     * @param buffer receives the chars; must hold at least {@link #length(int)} elements.
+     */
+    void copyChars(int id, char[] buffer) {
+        int start = offsets.get(id);
+        int length = length(id);
+        for (int i = 0; i < length; i++) {
+            buffer[i] = chars.get(start + i);
+        }
+    }
+
+    /**
+     * Check whether a stored word equals a given word.
+     * @param id the word id.
+     * @param word the word to compare with.
+     * @return true if the words are equal.
+     */
+    boolean isWord(int id, String word) {
+        return length(id) == word.length() && compare(word, id) == 0;
+    }
+
+    /**
+     * Hash a stored word the same way {@link String#hashCode()} hashes the equal String.
+     * @param id the word id.
+     * @return the hash code.
+     */
+    int hashCode(int id) {
+        int start = offsets.get(id);
+        int end = offsets.get(id + 1);
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars.get(i);
+        }
+        return hash;
+    }
+
+    /**
+     * Find the id of a word using a binary search.
+     * @param word the word to find.
+     * @param path if not null, every word visited by the search is appended to it.
+     * @return the id of the word, or -1 if the word is not in the dictionary.
+     */
+    int indexOf(String word, List<String> path) {
+        int low = 0;
+        int high = size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (path != null) {
+                path.add(word(mid));
+            }
+
+            int cmp = compare(word, mid);
+            if (cmp < 0) {
+                high = mid - 1;
+            } else if (cmp > 0) {
+                low = mid + 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Check whether the dictionary contains a word.
+     * @param word the word to find.
+     * @return true if the word is in the dictionary.
+     */
+    boolean contains(String word) {
+        return indexOf(word, null) >= 0;
+    }
+
+    // Compare a word with a stored word using the same ordering as String.compareTo
+    private int compare(String word, int id) {
+        int start = offsets.get(id);
+        int length = length(id);
+        int limit = Math.min(word.length(), length);
+        for (int i = 0; i < limit; i++) {
+            char c = word.charAt(i);
+            char d = chars.get(start + i);
+            if (c != d) {
+                return c - d;
+            }
+        }
+        return word.length() - length;
+    }
+}
@@ -0,0 +1,574 @@
+package spellchecker;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Spell checks a corpus of files in four stages, each with its own pool of worker threads: reading the
+ * files, tokenizing them, checking every distinct word against the dictionary and generating suggestions
+ * for the misspelled ones. A single writer thread emits one JSON line per misspelled word.
+ *
+ * <p>Files are streamed through the stages in chunks of at most 64K chars, cut between words, and stages
+ * are connected by bounded queues. When a stage falls behind (usually suggestion generation) the stages
+ * before it block instead of piling up work, and a file is read only as fast as its chunks are taken. At
+ * most {@code queueCapacity} chunks are held per queue, whatever the size of the corpus or of its files.</p>
+ */
+public final class CorpusPipeline {
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 64;
+    private static final int CHUNK_CHARS = 1 << 16;
+    // Tells a worker that its stage has no more input
+    private static final Object END = new Object();
+
+    private final SpellChecker spellChecker;
+    private final int maxSuggestions;
+    private final int queueCapacity;
+    private final int[] workers;
+    // Replaced as a whole by every run, so stats() can read it from another thread
+    private volatile List<Stage> stages = Collections.emptyList();
+    private volatile long startTime;
+    // Set when the current run is stopped early, by an interrupt or by a worker failing with an error
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile Thread runner;
+
+    /**
+     * Create a pipeline with one reader, tokenizer and checker, a suggestion worker per processor and
+     * queues holding up to 64 chunks.
+     * @param spellChecker the spell checker, with its dictionary loaded.
+     * @param maxSuggestions the maximum number of suggestions per misspelled word.
+     */
+    public CorpusPipeline(SpellChecker spellChecker, long maxSuggestions) {
+        this(spellChecker, maxSuggestions, DEFAULT_QUEUE_CAPACITY, 1, 1, 1, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a pipeline.
+     * @param spellChecker the spell checker, with its dictionary loaded.
+     * @param maxSuggestions the maximum number of suggestions per misspelled word.
+     * @param queueCapacity the number of chunks each queue between two stages holds before blocking.
+     * @param readers the number of threads reading files.
+     * @param tokenizers the number of threads tokenizing files.
+     * @param checkers the number of threads checking words against the dictionary.
+     * @param suggesters the number of threads generating suggestions.
+     */
+    public CorpusPipeline(SpellChecker spellChecker, long maxSuggestions, int queueCapacity, int readers,
+                          int tokenizers, int checkers, int suggesters) {
+        this.spellChecker = spellChecker;
+        this.maxSuggestions = (int) Math.max(0, Math.min(Integer.MAX_VALUE, maxSuggestions));
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.workers = new int[] {Math.max(1, readers), Math.max(1, tokenizers), Math.max(1, checkers),
+                Math.max(1, suggesters), 1};
+    }
+
+    /**
+     * Check every file and write the misspellings as JSON lines, blocking until the whole corpus is done.
+     * Each line holds the file, the offset and token of a misspelled word and its suggestions. Files that
+     * cannot be read are reported on standard error and skipped; one that fails part way keeps the lines of
+     * the chunks read before. A pipeline runs one corpus at a time.
+     *
+     * <p>If the calling thread is interrupted, or a worker fails with an {@link Error}, every stage is
+     * stopped and its queue emptied before this method throws; the output then holds only part of the
+     * corpus and is not flushed.</p>
+     * @param files the files to check, in UTF-8.
+     * @param output receives the JSON lines; it is flushed but not closed.
+     * @return the statistics of every stage once the run completes.
+     * @throws InterruptedException if the calling thread is interrupted.
+     */
+    public synchronized List<StageStats> run(Collection<Path> files, Writer output) throws InterruptedException {
+        BufferedWriter writer = new BufferedWriter(output);
+        Stage write = new Stage("write", workers[4], null, lines -> {
+            try {
+                for (Object line : (List<?>) lines) {
+                    writer.write((String) line);
+                    writer.newLine();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        });
+        Stage suggest = new Stage("suggest", workers[3], write, item -> suggest((Misspellings) item));
+        Stage check = new Stage("check", workers[2], suggest, item -> check((Tokens) item));
+        Stage tokenize = new Stage("tokenize", workers[1], check, item -> tokenize((Document) item));
+        Stage read = new Stage("read", workers[0], tokenize, item -> read((Path) item, tokenize));
+        stages = Arrays.asList(read, tokenize, check, suggest, write);
+
+        cancelled.set(false);
+        failure.set(null);
+        runner = Thread.currentThread();
+        startTime = System.nanoTime();
+        for (Stage stage : stages) {
+            stage.start();
+        }
+        boolean finished = false;
+        try {
+            for (Path file : files) {
+                read.put(file);
+            }
+            read.end();
+            for (Stage stage : stages) {
+                stage.join();
+            }
+            finished = true;
+        } catch (InterruptedException e) {
+            // Either the caller interrupted the run or a worker stopped it after an error
+            Throwable error = failure.get();
+            if (error instanceof Error) {
+                throw (Error) error;
+            }
+            throw e;
+        } finally {
+            if (!finished) {
+                stop();
+            }
+            runner = null;
+        }
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return stats();
+    }
+
+    /**
+     * Get the statistics of every stage so far. May be called from another thread while a run is in progress.
+     * @return the statistics, in pipeline order.
+     */
+    public List<StageStats> stats() {
+        double seconds = Math.max(1, System.nanoTime() - startTime) / 1e9;
+        List<StageStats> stats = new ArrayList<>();
+        for (Stage stage : stages) {
+            stats.add(new StageStats(stage.name, stage.threads.length, stage.processed.get(),
+                    stage.processed.get() / seconds, stage.input.size(), stage.maxQueueDepth.get(), stage.failed.get()));
+        }
+        return stats;
+    }
+
+    // Stop the current run: later calls do nothing, so only the first cause is kept and the caller's
+    // thread is interrupted at most once
+    private void cancel(Throwable cause) {
+        if (!cancelled.compareAndSet(false, true)) {
+            return;
+        }
+        failure.set(cause);
+        for (Stage stage : stages) {
+            stage.interrupt();
+        }
+        Thread current = runner;
+        if (current != null && current != Thread.currentThread()) {
+            current.interrupt();
+        }
+    }
+
+    // Cancel the run, then drop every queued item and wait for the workers to exit
+    private void stop() {
+        cancel(null);
+        boolean interrupted = false;
+        for (Stage stage : stages) {
+            stage.input.clear();
+            for (Thread thread : stage.threads) {
+                while (thread.isAlive()) {
+                    try {
+                        thread.join();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+            stage.input.clear();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Stream a file to the tokenizers in chunks, so that no more of it is held at once than their queue takes.
+    // The chunks are put to the next stage here, as they are read, and nothing is returned.
+    private Object read(Path file, Stage tokenize) throws InterruptedException {
+        // Malformed input is replaced rather than failing the file, as when decoding a String
+        try (Reader reader = new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8)) {
+            char[] buffer = new char[CHUNK_CHARS];
+            int length = 0;
+            long offset = 0;
+            int count;
+            while ((count = reader.read(buffer, length, buffer.length - length)) >= 0) {
+                length += count;
+                if (length == buffer.length) {
+                    int cut = cut(buffer, length);
+                    tokenize.put(new Document(file, offset, new String(buffer, 0, cut)));
+                    offset += cut;
+                    length -= cut;
+                    System.arraycopy(buffer, cut, buffer, 0, length);
+                }
+            }
+            if (length > 0) {
+                tokenize.put(new Document(file, offset, new String(buffer, 0, length)));
+            }
+        } catch (IOException e) {
+            System.err.println("Skipping " + file + ": " + e);
+        }
+        return null;
+    }
+
+    // Cut a full buffer after its last whitespace, so that no word is split between two chunks. A run without
+    // whitespace as long as the buffer is no word anyway, and is cut where the buffer ends.
+    private static int cut(char[] buffer, int length) {
+        for (int i = length - 1; i > 0; i--) {
+            if (Character.isWhitespace(buffer[i])) {
+                return i + 1;
+            }
+        }
+        return length;
+    }
+
+    private Tokens tokenize(Document document) {
+        Tokenizer tokenizer = new Tokenizer(new StringReader(document.text));
+        List<String> tokens = new ArrayList<>();
+        long[] offsets = new long[16];
+        try {
+            while (tokenizer.next()) {
+                if (tokens.size() == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                }
+                offsets[tokens.size()] = document.offset + tokenizer.offset();
+                tokens.add(tokenizer.token());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Tokens(document.file, offsets, tokens.toArray(new String[0]));
+    }
+
+    // Look up each distinct word once, against a single snapshot, and keep only the misspelled tokens
+    private Misspellings check(Tokens tokens) {
+        DictionarySnapshot current = spellChecker.snapshot();
+        Map<String, Boolean> known = new HashMap<>();
+        List<Integer> misspelled = new ArrayList<>();
+        for (int i = 0; i < tokens.tokens.length; i++) {
+            String word = tokens.tokens[i].toLowerCase();
+            if (!known.computeIfAbsent(word, w -> spellChecker.contains(current, w, null))) {
+                misspelled.add(i);
+            }
+        }
+        if (misspelled.isEmpty()) {
+            return null;
+        }
+
+        long[] offsets = new long[misspelled.size()];
+        String[] words = new String[misspelled.size()];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = tokens.offsets[misspelled.get(i)];
+            words[i] = tokens.tokens[misspelled.get(i)];
+        }
+        return new Misspellings(tokens.file, offsets, words);
+    }
+
+    // Generate suggestions once per distinct misspelling in the chunk, and format a line per occurrence
+    private List<String> suggest(Misspellings misspellings) {
+        Map<String, JsonArray> suggestionsByWord = new HashMap<>();
+        List<String> lines = new ArrayList<>(misspellings.tokens.length);
+        for (int i = 0; i < misspellings.tokens.length; i++) {
+            JsonArray suggestions = suggestionsByWord.computeIfAbsent(misspellings.tokens[i].toLowerCase(), word -> {
+                JsonArray array = new JsonArray();
+                Suggestions ranked = spellChecker.suggest(word, maxSuggestions);
+                for (int s = 0; s < ranked.size(); s++) {
+                    JsonObject object = new JsonObject();
+                    object.addProperty("word", ranked.getWord(s));
+                    object.addProperty("score", ranked.getScore(s));
+                    array.add(object);
+                }
+                return array;
+            });
+
+            JsonObject line = new JsonObject();
+            line.addProperty("file", misspellings.file.toString());
+            line.addProperty("offset", misspellings.offsets[i]);
+            line.addProperty("token", misspellings.tokens[i]);
+            line.add("suggestions", suggestions);
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * The statistics of one stage of the pipeline.
+     */
+    public static final class StageStats {
+        private final String name;
+        private final int workers;
+        private final long processed;
+        private final double throughput;
+        private final int queueDepth;
+        private final int maxQueueDepth;
+        private final long failed;
+
+        StageStats(String name, int workers, long processed, double throughput, int queueDepth, int maxQueueDepth,
+                   long failed) {
+            this.name = name;
+            this.workers = workers;
+            this.processed = processed;
+            this.throughput = throughput;
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.failed = failed;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        // The number of items this stage has finished with: files for the read stage, chunks of them for the others
+        public long getProcessed() {
+            return processed;
+        }
+
+        // Items per second since the run started
+        public double getThroughput() {
+            return throughput;
+        }
+
+        // The number of items waiting in this stage's input queue
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getMaxQueueDepth() {
+            return maxQueueDepth;
+        }
+
+        // The number of items this stage failed on, which are dropped from the output
+        public long getFailed() {
+            return failed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-8s workers=%d processed=%d (%.1f/s) queue=%d (max %d) failed=%d",
+                    name, workers, processed, throughput, queueDepth, maxQueueDepth, failed);
+        }
+    }
+
+    /**
+     * A pool of workers taking items from a bounded queue and handing the results to the next stage.
+     * A null result drops the item.
+     */
+    private final class Stage {
+        private final String name;
+        private final BlockingQueue<Object> input = new ArrayBlockingQueue<>(queueCapacity);
+        private final Stage next;
+        private final Work work;
+        private final Thread[] threads;
+        private final AtomicInteger running;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+        Stage(String name, int workers, Stage next, Work work) {
+            this.name = name;
+            this.next = next;
+            this.work = work;
+            this.threads = new Thread[workers];
+            this.running = new AtomicInteger(workers);
+            for (int i = 0; i < workers; i++) {
+                threads[i] = new Thread(this::work, "pipeline-" + name + "-" + i);
+                threads[i].setDaemon(true);
+            }
+        }
+
+        void start() {
+            for (Thread thread : threads) {
+                thread.start();
+            }
+        }
+
+        void join() throws InterruptedException {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        void interrupt() {
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+        }
+
+        void put(Object item) throws InterruptedException {
+            input.put(item);
+            maxQueueDepth.accumulateAndGet(input.size(), Math::max);
+        }
+
+        // Signal every worker that no more input will arrive
+        void end() throws InterruptedException {
+            for (int i = 0; i < threads.length; i++) {
+                input.put(END);
+            }
+        }
+
+        private void work() {
+            try {
+                process();
+            } catch (InterruptedException e) {
+                // Either the run is being cancelled already or a thread outside the pipeline interrupted this one;
+                // in both cases nothing will feed or drain the stages any more
+                cancel(null);
+            } catch (Error e) {
+                failed.incrementAndGet();
+                cancel(e);
+                throw e;
+            } finally {
+                // However this worker stopped, the last one of the stage passes the end on, unless the run is
+                // cancelled and every stage is already stopping
+                if (running.decrementAndGet() == 0 && next != null && !cancelled.get()) {
+                    try {
+                        next.end();
+                    } catch (InterruptedException e) {
+                        cancel(null);
+                    }
+                }
+            }
+        }
+
+        private void process() throws InterruptedException {
+            Object item;
+            while ((item = input.take()) != END) {
+                Object result;
+                try {
+                    result = work.apply(item);
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                    e.printStackTrace();
+                    continue;
+                }
+                processed.incrementAndGet();
+                if (result != null && next != null) {
+                    next.put(result);
+                }
+            }
+        }
+    }
+
+    /**
+     * What a stage does with one item of its input.
+     */
+    private interface Work {
+        /**
+         * Process an item.
+         * @param item the item.
+         * @return the result to pass to the next stage, or null to pass nothing.
+         * @throws InterruptedException if interrupted while handing results to the next stage itself.
+         */
+        Object apply(Object item) throws InterruptedException;
+    }
+
+    // A chunk of a file, starting offset chars into it
+    private static final class Document {
+        final Path file;
+        final long offset;
+        final String text;
+
+        Document(Path file, long offset, String text) {
+            this.file = file;
+            this.offset = offset;
+            this.text = text;
+        }
+    }
+
+    private static final class Tokens {
+        final Path file;
+        final long[] offsets;
+        final String[] tokens;
+
+        Tokens(Path file, long[] offsets, String[] tokens) {
+            this.file = file;
+            this.offsets = offsets;
+            this.tokens = tokens;
+        }
+    }
+
+    private static final class Misspellings {
+        final Path file;
+        final long[] offsets;
+        final String[] tokens;
+
+        Misspellings(Path file, long[] offsets, String[] tokens) {
+            this.file = file;
+            this.offsets = offsets;
+            this.tokens = tokens;
+        }
+    }
+
+    /**
+     * Spell check every file under a directory from the command line, printing the stage statistics
+     * to standard error every few seconds.
+     * Usage: {@code CorpusPipeline <dictionary.txt> <corpus directory> <output.jsonl> [maxSuggestions]}
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3) {
+            System.err.println("Usage: CorpusPipeline <dictionary.txt> <corpus directory> <output.jsonl> [maxSuggestions]");
+            System.exit(1);
+        }
+        long maxSuggestions = args.length > 3 ? Long.parseLong(args[3]) : 5;
+
+        SpellChecker spellChecker = new SpellChecker(2);
+        spellChecker.loadDictionary(args[0]);
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(Paths.get(args[1]))) {
+            files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+
+        CorpusPipeline pipeline = new CorpusPipeline(spellChecker, maxSuggestions);
+        Thread reporter = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(5000);
+                    pipeline.stats().forEach(System.err::println);
+                }
+            } catch (InterruptedException e) {
+                // The run is over
+            }
+        }, "pipeline-stats");
+        reporter.setDaemon(true);
+        reporter.start();
+
+        List<StageStats> stats;
+        try (Writer output = Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8)) {
+            stats = pipeline.run(files, output);
+        }
+        reporter.interrupt();
+        stats.forEach(System.err::println);
+    }
+}
@@ -0,0 +1,139 @@
+package spellchecker;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A symmetric-delete candidate index (as used by SymSpell).
+ * Every dictionary word is indexed under all the strings obtainable by deleting up to
+ * {@code maxEditDistance} characters from its prefix. A query generates its own deletes the same
+ * way, and any two words within the edit distance share at least one delete, so a handful of
+ * lookups replace a scan of the whole dictionary.
+ */
+final class DeletionIndex {
+
+    private final CompactDictionary dictionary;
+    private final int maxEditDistance;
+    private final int prefixLength;
+    private final PostingIndex deletes;
+
+    private DeletionIndex(CompactDictionary dictionary, int maxEditDistance, int prefixLength, PostingIndex deletes) {
+        this.dictionary = dictionary;
+        this.maxEditDistance = maxEditDistance;
+        this.prefixLength = prefixLength;
+        this.deletes = deletes;
+    }
+
+    /**
+     * Build the index for a dictionary.
+     * @param dictionary the dictionary words.
+     * @param maxEditDistance the largest Damerau-Levenshtein distance a candidate may have.
+     * @param prefixLength only this many leading characters of each word are used to generate deletes.
+     */
+    DeletionIndex(CompactDictionary dictionary, int maxEditDistance, int prefixLength) {
+        this.dictionary = dictionary;
+        this.maxEditDistance = maxEditDistance;
+        this.prefixLength = prefixLength;
+
+        PostingIndex.Builder builder = new PostingIndex.Builder();
+        Set<String> variants = new HashSet<>();
+        for (int id = 0; id < dictionary.size(); id++) {
+            variants.clear();
+            generateDeletes(prefix(dictionary.word(id)), maxEditDistance, variants);
+            for (String variant : variants) {
+                builder.add(variant.hashCode(), id);
+            }
+        }
+        deletes = builder.build();
+    }
+
+    /**
+     * Read an index previously written with {@link #write(DictionaryImage.Writer)}.
+     * @param reader the image being read.
+     * @param dictionary the dictionary the index was built for.
+     * @return the index, backed by the image.
+     */
+    static DeletionIndex read(DictionaryImage.Reader reader, CompactDictionary dictionary) throws IOException {
+        int maxEditDistance = reader.readInt();
+        int prefixLength = reader.readInt();
+        return new DeletionIndex(dictionary, maxEditDistance, prefixLength, PostingIndex.read(reader));
+    }
+
+    /**
+     * Write the index into a dictionary image.
+     * @param writer the image being written.
+     */
+    void write(DictionaryImage.Writer writer) throws IOException {
+        writer.writeInt(maxEditDistance);
+        writer.writeInt(prefixLength);
+        deletes.write(writer);
+    }
+
+    /**
+     * Get the ids of all dictionary words within the maximum edit distance of the query.
+     * @param query the lowercased query word.
+     * @return the matching word ids in ascending order.
+     */
+    int[] lookup(String query) {
+        Set<String> variants = new HashSet<>();
+        generateDeletes(prefix(query), maxEditDistance, variants);
+
+        Set<Integer> seen = new HashSet<>();
+        int[] matches = new int[16];
+        int count = 0;
+        char[] queryChars = query.toCharArray();
+        SimilarityKernels.Scratch scratch = SimilarityKernels.scratch();
+        for (String variant : variants) {
+            int slot = deletes.find(variant.hashCode());
+            if (slot < 0) {
+                continue;
+            }
+            for (int i = deletes.start(slot); i < deletes.end(slot); i++) {
+                int id = deletes.posting(i);
+                if (Math.abs(dictionary.length(id) - query.length()) > maxEditDistance || !seen.add(id)) {
+                    continue;
+                }
+                // Candidates only need to be confirmed within the bound, not measured exactly
+                int length = dictionary.length(id);
+                char[] word = scratch.word(length);
+                dictionary.copyChars(id, word);
+                if (SimilarityKernels.damerauLevenshtein(queryChars, queryChars.length, word, length, maxEditDistance,
+                        scratch) <= maxEditDistance) {
+                    if (count == matches.length) {
+                        matches = Arrays.copyOf(matches, count * 2);
+                    }
+                    matches[count++] = id;
+                }
+            }
+        }
+
+        int[] result = Arrays.copyOf(matches, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Get the maximum edit distance this index was built for.
+     * @return the maximum edit distance.
+     */
+    int maxEditDistance() {
+        return maxEditDistance;
+    }
+
+    private String prefix(String word) {
+        return word.length() > prefixLength ? word.substring(0, prefixLength) : word;
+    }
+
+    // Add the word and every string reachable from it by deleting up to 'distance' characters
+    private static void generateDeletes(String word, int distance, Set<String> variants) {
+        if (!variants.add(word) || distance == 0) {
+            return;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            String deleted = word.substring(0, i) + word.substring(i + 1);
+            generateDeletes(deleted, distance - 1, variants);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package spellchecker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A prebuilt, binary dictionary image containing the sorted words and every index built over them.
+ * An image is compiled offline from a text dictionary and opened with a read-only memory mapping,
+ * so loading it involves no per-word parsing and several JVMs on one host share the same pages.
+ *
+ * <p>Layout (little-endian): a 24 byte header holding the magic number, the format version, the
+ * payload length and the CRC-32 of the payload, followed by the payload. The payload is a sequence
+ * of ints and length-prefixed int or char sections, each padded to a multiple of four bytes.</p>
+ */
+public final class DictionaryImage {
+
+    /** The suffix {@link SpellChecker#loadDictionary(String)} looks for next to a text dictionary. */
+    public static final String EXTENSION = ".img";
+
+    private static final int MAGIC = 0x534C5641; // "AVLS"
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 24;
+
+    private DictionaryImage() {
+    }
+
+    /**
+     * Compile a text dictionary into an image.
+     * @param dictionaryFilename the text dictionary, one word per line, optionally followed by its frequency.
+     * @param imageFilename the image file to write.
+     * @param nGramSize the n-gram size the image is built for.
+     * @param maxEditDistance the maximum edit distance the image is built for.
+     * @throws IOException if the text dictionary cannot be read or the image cannot be written.
+     */
+    public static void compile(String dictionaryFilename, String imageFilename, int nGramSize, int maxEditDistance)
+            throws IOException {
+        List<StringSimilarityAlgorithm> algorithms = SpellChecker.defaultAlgorithms();
+        write(SpellChecker.readTextDictionary(dictionaryFilename, nGramSize, maxEditDistance, algorithms), algorithms,
+                Paths.get(imageFilename));
+    }
+
+    /**
+     * Write a snapshot into an image file, replacing it if it exists. The image is written to a temporary
+     * file next to it and moved into place, so processes that have the previous image mapped keep reading
+     * intact pages rather than a file truncated under them.
+     * @param snapshot the snapshot to write.
+     * @param algorithms the similarity algorithms the snapshot was built for.
+     * @param image the image file.
+     */
+    static void write(DictionarySnapshot snapshot, List<StringSimilarityAlgorithm> algorithms, Path image)
+            throws IOException {
+        Path absolute = image.toAbsolutePath();
+        // Named after the writing process rather than created with createTempFile, whose owner-only permissions
+        // would keep other users' processes from mapping the image
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + "." + ProcessHandle.current().pid() + "."
+                + System.nanoTime() + ".tmp");
+        try {
+            writePayload(snapshot, algorithms, temporary);
+            Files.move(temporary, absolute, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void writePayload(DictionarySnapshot snapshot, List<StringSimilarityAlgorithm> algorithms,
+                                     Path image) throws IOException {
+        try (FileChannel channel = FileChannel.open(image, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            channel.position(HEADER_SIZE);
+            Writer writer = new Writer(channel);
+
+            snapshot.dictionary().write(writer);
+            snapshot.wordIndex().write(writer);
+            snapshot.deletionIndex().write(writer);
+            snapshot.nGramIndex().write(writer);
+
+            PhoneticIndex[] phoneticIndexes = snapshot.phoneticIndexes();
+            int phoneticCount = 0;
+            for (PhoneticIndex index : phoneticIndexes) {
+                if (index != null) {
+                    phoneticCount++;
+                }
+            }
+            writer.writeInt(phoneticCount);
+            for (int i = 0; i < phoneticIndexes.length; i++) {
+                if (phoneticIndexes[i] != null) {
+                    writer.writeInt(i);
+                    writer.writeChars(CharBuffer.wrap(algorithms.get(i).getClass().getName()));
+                    phoneticIndexes[i].write(writer);
+                }
+            }
+            FrequencyTable frequencies = snapshot.frequencies();
+            writer.writeInt(frequencies != null ? 1 : 0);
+            if (frequencies != null) {
+                frequencies.write(writer);
+            }
+            writer.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putLong(writer.length).putLong(writer.checksum.getValue());
+            header.flip();
+            channel.write(header, 0);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Map an image file and open the snapshot it contains.
+     * @param image the image file.
+     * @param nGramSize the n-gram size the caller expects.
+     * @param maxEditDistance the maximum edit distance the caller expects.
+     * @param algorithms the similarity algorithms the caller scores with.
+     * @return the snapshot, backed by the mapping.
+     * @throws IOException if the image cannot be read, is corrupt, or was built with other parameters.
+     */
+    static DictionarySnapshot read(Path image, int nGramSize, int maxEditDistance,
+                                   List<StringSimilarityAlgorithm> algorithms) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Dictionary image is larger than 2 GB: " + image);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a dictionary image: " + image);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported dictionary image version " + buffer.getInt(4) + ": " + image);
+        }
+        long length = buffer.getLong(8);
+        if (length != buffer.limit() - HEADER_SIZE) {
+            throw new IOException("Truncated dictionary image: " + image);
+        }
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(HEADER_SIZE);
+        CRC32 checksum = new CRC32();
+        checksum.update(payload);
+        if (checksum.getValue() != buffer.getLong(16)) {
+            throw new IOException("Dictionary image checksum mismatch: " + image);
+        }
+
+        buffer.position(HEADER_SIZE);
+        Reader reader = new Reader(buffer);
+        CompactDictionary dictionary = CompactDictionary.read(reader);
+        WordHashIndex wordIndex = WordHashIndex.read(reader, dictionary);
+        DeletionIndex deletionIndex = DeletionIndex.read(reader, dictionary);
+        NGramIndex nGramIndex = NGramIndex.read(reader);
+        if (deletionIndex.maxEditDistance() != maxEditDistance || nGramIndex.nGramSize() != nGramSize) {
+            throw new IOException("Dictionary image was built for n-gram size " + nGramIndex.nGramSize()
+                    + " and edit distance " + deletionIndex.maxEditDistance() + ": " + image);
+        }
+
+        PhoneticIndex[] phoneticIndexes = new PhoneticIndex[algorithms.size()];
+        int phoneticCount = reader.readInt();
+        for (int n = 0; n < phoneticCount; n++) {
+            int position = reader.readInt();
+            String algorithmName = reader.readChars().toString();
+            if (position >= algorithms.size() || !algorithms.get(position).getClass().getName().equals(algorithmName)) {
+                throw new IOException("Dictionary image was built for other similarity algorithms: " + image);
+            }
+            phoneticIndexes[position] = PhoneticIndex.read(reader);
+        }
+        for (int i = 0; i < phoneticIndexes.length; i++) {
+            if (algorithms.get(i).isKeyBased() && phoneticIndexes[i] == null) {
+                throw new IOException("Dictionary image has no keys for " + algorithms.get(i).getClass().getName()
+                        + ": " + image);
+            }
+        }
+        FrequencyTable frequencies = reader.readInt() != 0 ? FrequencyTable.read(reader, dictionary) : null;
+        return new DictionarySnapshot(dictionary, wordIndex, deletionIndex, nGramIndex, phoneticIndexes, frequencies);
+    }
+
+    /**
+     * Appends the payload of an image to a file channel while computing its checksum.
+     */
+    static final class Writer {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32 checksum = new CRC32();
+        private long length;
+
+        private Writer(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void writeInt(int value) throws IOException {
+            if (buffer.remaining() < Integer.BYTES) {
+                flush();
+            }
+            buffer.putInt(value);
+        }
+
+        void writeInts(IntBuffer values) throws IOException {
+            writeInt(values.limit());
+            for (int i = 0; i < values.limit(); i++) {
+                writeInt(values.get(i));
+            }
+        }
+
+        void writeChars(CharBuffer values) throws IOException {
+            writeInt(values.limit());
+            for (int i = 0; i < values.limit(); i++) {
+                if (buffer.remaining() < Character.BYTES) {
+                    flush();
+                }
+                buffer.putChar(values.get(i));
+            }
+            if (values.limit() % 2 != 0) {
+                if (buffer.remaining() < Character.BYTES) {
+                    flush();
+                }
+                buffer.putChar('\0');
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            checksum.update(buffer.duplicate());
+            length += buffer.remaining();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Reads the payload of a mapped image, handing out views of the mapping instead of copies.
+     */
+    static final class Reader {
+        private final ByteBuffer buffer;
+
+        private Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int readInt() {
+            return buffer.getInt();
+        }
+
+        IntBuffer readInts() {
+            int count = buffer.getInt();
+            return section(count * Integer.BYTES).asIntBuffer();
+        }
+
+        CharBuffer readChars() {
+            int count = buffer.getInt();
+            CharBuffer values = section(count * Character.BYTES).asCharBuffer();
+            if (count % 2 != 0) {
+                buffer.position(buffer.position() + Character.BYTES);
+            }
+            return values;
+        }
+
+        private ByteBuffer section(int bytes) {
+            ByteBuffer section = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+            section.limit(bytes);
+            buffer.position(buffer.position() + bytes);
+            return section;
+        }
+    }
+
+    /**
+     * Compile a text dictionary into an image from the command line.
+     * Usage: {@code DictionaryImage <dictionary.txt> [image] [nGramSize] [maxEditDistance]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: DictionaryImage <dictionary.txt> [image] [nGramSize] [maxEditDistance]");
+            System.exit(1);
+        }
+        String image = args.length > 1 ? args[1] : args[0] + EXTENSION;
+        int nGramSize = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        int maxEditDistance = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+
+        long startTime = System.nanoTime();
+        compile(args[0], image, nGramSize, maxEditDistance);
+        long endTime = System.nanoTime();
+        System.out.println("Wrote " + image + " (" + Files.size(Paths.get(image)) + " bytes) in "
+                + (endTime - startTime) / 1_000_000 + " ms");
+    }
+}
@@ -0,0 +1,199 @@
+package spellchecker;
+
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The dictionaries shared by every spell checker of the JVM, such as one per language, each loaded once
+ * and kept as an immutable {@link DictionarySnapshot}. Spell checkers layer their own words over them with
+ * {@link SpellChecker#addSharedDictionary(String)}, so any number of spell checkers for the same language
+ * hold a single copy of its indexes between them.
+ *
+ * <p>A dictionary is identified by its file together with the n-gram size, maximum edit distance and
+ * similarity algorithms its indexes are built for. A file modified since it was loaded is loaded again
+ * when it is next asked for; spell checkers already using the previous version keep it until they ask.</p>
+ *
+ * <p>The registry only holds its dictionaries weakly: once no spell checker uses a dictionary any more,
+ * because they all removed it or were themselves collected, the garbage collector reclaims it and it is
+ * loaded again the next time it is asked for. Loading happens outside any lock, so loading one dictionary
+ * does not hold up others; concurrent requests for the same dictionary wait for a single load.</p>
+ */
+final class DictionaryRegistry {
+
+    private static final DictionaryRegistry SHARED = new DictionaryRegistry();
+
+    private final ConcurrentHashMap<Key, Entry> dictionaries = new ConcurrentHashMap<>();
+    // Receives the references of dictionaries no spell checker uses any more, so their entries can be dropped
+    private final ReferenceQueue<DictionarySnapshot> collected = new ReferenceQueue<>();
+
+    /**
+     * Get the registry of the JVM.
+     * @return the shared registry.
+     */
+    static DictionaryRegistry shared() {
+        return SHARED;
+    }
+
+    /**
+     * Get a dictionary, loading it if it is not loaded yet or its file changed since. Loading reads the
+     * prebuilt image next to the file when one is up to date, as {@link SpellChecker#loadDictionary(String)} does.
+     * @param file the text dictionary.
+     * @param nGramSize the n-gram size of the n-gram index.
+     * @param maxEditDistance the maximum edit distance of the deletion index.
+     * @param algorithms the similarity algorithms; key-based ones get a phonetic index at the same position.
+     * @return the dictionary, without an overlay or layers of its own.
+     * @throws IOException if neither the image nor the text file can be read.
+     */
+    DictionarySnapshot get(Path file, int nGramSize, int maxEditDistance,
+                           List<StringSimilarityAlgorithm> algorithms) throws IOException {
+        expungeCollected();
+        Path absolute = file.toAbsolutePath().normalize();
+        Key key = new Key(absolute, nGramSize, maxEditDistance, algorithms);
+        FileTime modifiedTime = lastModifiedTime(absolute);
+        while (true) {
+            Entry entry = dictionaries.get(key);
+            if (entry != null && Objects.equals(entry.modifiedTime, modifiedTime)) {
+                DictionarySnapshot snapshot = entry.await();
+                if (snapshot != null) {
+                    return snapshot;
+                }
+            }
+
+            // Missing, stale or collected: whoever installs a new entry loads it, the others wait for it
+            Entry loading = new Entry(modifiedTime);
+            boolean installed = entry == null
+                    ? dictionaries.putIfAbsent(key, loading) == null
+                    : dictionaries.replace(key, entry, loading);
+            if (installed) {
+                return loading.load(key, absolute.toString(), nGramSize, maxEditDistance, algorithms);
+            }
+        }
+    }
+
+    /**
+     * Get the number of dictionaries loaded and still used by a spell checker.
+     * @return the number of distinct files and configurations.
+     */
+    int size() {
+        expungeCollected();
+        return dictionaries.size();
+    }
+
+    // Drop the entries of the dictionaries the garbage collector reclaimed
+    private void expungeCollected() {
+        SnapshotReference reference;
+        while ((reference = (SnapshotReference) collected.poll()) != null) {
+            dictionaries.remove(reference.key, reference.entry);
+        }
+    }
+
+    private static FileTime lastModifiedTime(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return null; // Loading reports the missing file
+        }
+    }
+
+    private static final class Key {
+        private final Path file;
+        private final int nGramSize;
+        private final int maxEditDistance;
+        private final List<String> algorithms;
+
+        Key(Path file, int nGramSize, int maxEditDistance, List<StringSimilarityAlgorithm> algorithms) {
+            this.file = file;
+            this.nGramSize = nGramSize;
+            this.maxEditDistance = maxEditDistance;
+            this.algorithms = new ArrayList<>(algorithms.size());
+            for (StringSimilarityAlgorithm algorithm : algorithms) {
+                // Phonetic indexes are only built for key-based algorithms
+                this.algorithms.add(algorithm.getName() + (algorithm.isKeyBased() ? "#key" : ""));
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return file.equals(other.file) && nGramSize == other.nGramSize
+                    && maxEditDistance == other.maxEditDistance && algorithms.equals(other.algorithms);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(file, nGramSize, maxEditDistance, algorithms);
+        }
+    }
+
+    /**
+     * One version of a dictionary: completed with a weak reference to it once loaded, or with the error
+     * that prevented loading it.
+     */
+    private final class Entry {
+        private final FileTime modifiedTime;
+        private final CompletableFuture<SnapshotReference> snapshot = new CompletableFuture<>();
+
+        Entry(FileTime modifiedTime) {
+            this.modifiedTime = modifiedTime;
+        }
+
+        DictionarySnapshot load(Key key, String file, int nGramSize, int maxEditDistance,
+                                List<StringSimilarityAlgorithm> algorithms) throws IOException {
+            try {
+                DictionarySnapshot loaded = SpellChecker.readDictionary(file, nGramSize, maxEditDistance, algorithms);
+                snapshot.complete(new SnapshotReference(loaded, key, this, collected));
+                return loaded;
+            } catch (IOException | RuntimeException | Error e) {
+                // Let the next request try again rather than fail with this error forever
+                dictionaries.remove(key, this);
+                snapshot.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        /**
+         * Wait until the dictionary is loaded.
+         * @return the dictionary, or null if it has been collected since.
+         * @throws IOException if loading it failed.
+         */
+        DictionarySnapshot await() throws IOException {
+            try {
+                return snapshot.join().get();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw new IOException(cause.getMessage(), cause);
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private static final class SnapshotReference extends WeakReference<DictionarySnapshot> {
+        private final Key key;
+        private final Entry entry;
+
+        SnapshotReference(DictionarySnapshot snapshot, Key key, Entry entry,
+                          ReferenceQueue<DictionarySnapshot> queue) {
+            super(snapshot, queue);
+            this.key = key;
+            this.entry = entry;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package spellchecker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable loaded dictionary together with all the indexes built over it.
+ * The word ids used by the indexes are the ids of {@link CompactDictionary}.
+ * A {@link SpellChecker} publishes a new snapshot when it loads a dictionary, so queries running
+ * concurrently keep using the snapshot they started with and never take a lock.
+ *
+ * <p>Words added or removed after loading are kept in a small overlay instead of rebuilding the
+ * indexes: added words live in an {@link AVLTree} and get the ids following the base dictionary,
+ * and removed base words are marked in a bit set. Changing the overlay copies it into a new
+ * snapshot, leaving this one untouched.</p>
+ *
+ * <p>A snapshot may also be layered over shared snapshots, such as a base language dictionary loaded
+ * once through {@link DictionaryRegistry} and used by many spell checkers. A word is in the dictionary
+ * if any layer has it. Shared layers are never changed through the overlay, and their word ids are
+ * their own, so the id based methods below only cover this snapshot's own words.</p>
+ */
+final class DictionarySnapshot {
+
+    private static final int DELETION_PREFIX_LENGTH = 7;
+
+    private final CompactDictionary dictionary;
+    private final WordHashIndex wordIndex;
+    private final DeletionIndex deletionIndex;
+    private final TrieIndex trieIndex;
+    private final NGramIndex nGramIndex;
+    private final PhoneticIndex[] phoneticIndexes;
+    // Null when the dictionary has no frequency column
+    private final FrequencyTable frequencies;
+    private final AVLTree<String> addedWords;
+    private final String[] added;
+    private final BitSet removed;
+    private final DictionarySnapshot[] sharedLayers;
+
+    DictionarySnapshot(CompactDictionary dictionary, WordHashIndex wordIndex, DeletionIndex deletionIndex,
+                       NGramIndex nGramIndex, PhoneticIndex[] phoneticIndexes, FrequencyTable frequencies) {
+        this(dictionary, wordIndex, deletionIndex, new TrieIndex(dictionary), nGramIndex, phoneticIndexes, frequencies,
+                new AVLTree<>(), new BitSet(), new DictionarySnapshot[0]);
+    }
+
+    private DictionarySnapshot(CompactDictionary dictionary, WordHashIndex wordIndex, DeletionIndex deletionIndex,
+                               TrieIndex trieIndex, NGramIndex nGramIndex, PhoneticIndex[] phoneticIndexes,
+                               FrequencyTable frequencies, AVLTree<String> addedWords, BitSet removed,
+                               DictionarySnapshot[] sharedLayers) {
+        this.dictionary = dictionary;
+        this.wordIndex = wordIndex;
+        this.deletionIndex = deletionIndex;
+        this.trieIndex = trieIndex;
+        this.nGramIndex = nGramIndex;
+        this.phoneticIndexes = phoneticIndexes;
+        this.frequencies = frequencies;
+        this.addedWords = addedWords;
+        this.removed = removed;
+        this.sharedLayers = sharedLayers;
+
+        List<String> addedInOrder = new ArrayList<>(addedWords.size());
+        addedWords.inOrder(addedInOrder::add);
+        this.added = addedInOrder.toArray(new String[0]);
+    }
+
+    /**
+     * Build a snapshot, and all of its indexes, from a collection of words.
+     * @param words the lowercased dictionary words; duplicates are dropped.
+     * @param frequencies the frequencies of the words, or null if the dictionary has none.
+     * @param nGramSize the n-gram size of the n-gram index.
+     * @param maxEditDistance the maximum edit distance of the deletion index.
+     * @param algorithms the similarity algorithms; key-based ones get a phonetic index at the same position.
+     * @return the snapshot.
+     */
+    static DictionarySnapshot build(Collection<String> words, Map<String, Long> frequencies, int nGramSize,
+                                    int maxEditDistance, List<StringSimilarityAlgorithm> algorithms) {
+        CompactDictionary dictionary = CompactDictionary.of(words);
+        PhoneticIndex[] phoneticIndexes = new PhoneticIndex[algorithms.size()];
+        for (int i = 0; i < phoneticIndexes.length; i++) {
+            if (algorithms.get(i).isKeyBased()) {
+                phoneticIndexes[i] = new PhoneticIndex(dictionary, algorithms.get(i));
+            }
+        }
+        return new DictionarySnapshot(dictionary,
+                new WordHashIndex(dictionary),
+                new DeletionIndex(dictionary, maxEditDistance, DELETION_PREFIX_LENGTH),
+                new NGramIndex(dictionary, nGramSize),
+                phoneticIndexes,
+                frequencies != null ? FrequencyTable.of(dictionary, frequencies) : null);
+    }
+
+    /**
+     * Get a copy of this snapshot with words added and removed through the overlay.
+     * The indexes are shared with this snapshot and are not rebuilt.
+     * @param additions the lowercased words to add.
+     * @param removals the lowercased words to remove.
+     * @return the new snapshot.
+     */
+    DictionarySnapshot withChanges(Collection<String> additions, Collection<String> removals) {
+        AVLTree<String> nextAdded = addedWords.copy();
+        BitSet nextRemoved = (BitSet) removed.clone();
+
+        for (String word : removals) {
+            int id = wordIndex.indexOf(word);
+            if (id >= 0) {
+                nextRemoved.set(id);
+            } else {
+                nextAdded.delete(word);
+            }
+        }
+        for (String word : additions) {
+            int id = wordIndex.indexOf(word);
+            if (id >= 0) {
+                nextRemoved.clear(id);
+            } else {
+                nextAdded.insert(word);
+            }
+        }
+        return new DictionarySnapshot(dictionary, wordIndex, deletionIndex, trieIndex, nGramIndex, phoneticIndexes,
+                frequencies, nextAdded, nextRemoved, sharedLayers);
+    }
+
+    /**
+     * Get a copy of this snapshot layered over shared snapshots, replacing any layers it had.
+     * @param layers the shared snapshots, searched after this one in order; they must have no layers of their own.
+     * @return the new snapshot, or this one if it already has exactly these layers.
+     */
+    DictionarySnapshot withSharedLayers(DictionarySnapshot[] layers) {
+        if (Arrays.equals(layers, sharedLayers)) {
+            return this;
+        }
+        return new DictionarySnapshot(dictionary, wordIndex, deletionIndex, trieIndex, nGramIndex, phoneticIndexes,
+                frequencies, addedWords, removed, layers.clone());
+    }
+
+    /**
+     * Check whether a word is in the dictionary, taking the overlay and the shared layers into account.
+     * Without a path the word is found through the hash index; the binary search, which records the path,
+     * only runs when asked to.
+     * @param word the lowercased word.
+     * @param path if not null, every word visited by the search, in this snapshot and then in each shared
+     *             layer it goes on to, is appended to it.
+     * @return true if the word is in the dictionary.
+     */
+    boolean contains(String word, List<String> path) {
+        if (containsOwn(word, path)) {
+            return true;
+        }
+        for (DictionarySnapshot layer : sharedLayers) {
+            if (layer.containsOwn(word, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean containsOwn(String word, List<String> path) {
+        int id = path != null ? dictionary.indexOf(word, path) : wordIndex.indexOf(word);
+        if (id >= 0) {
+            return !removed.get(id);
+        }
+        return addedWords.size() > 0 && addedWords.contains(word, path);
+    }
+
+    /**
+     * Get the number of word ids, including removed base words and the words added through the overlay.
+     * @return the exclusive upper bound of the word ids.
+     */
+    int wordCount() {
+        return dictionary.size() + added.length;
+    }
+
+    /**
+     * Get the number of words currently in the dictionary, not counting the shared layers.
+     * @return the number of live words.
+     */
+    int liveWordCount() {
+        return wordCount() - removed.cardinality();
+    }
+
+    /**
+     * Get the number of words currently in the dictionary and its shared layers. A word found in several
+     * layers is counted once per layer.
+     * @return the number of live words of every layer.
+     */
+    int layeredWordCount() {
+        long count = liveWordCount();
+        for (DictionarySnapshot layer : sharedLayers) {
+            count += layer.liveWordCount();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, count);
+    }
+
+    /**
+     * Get the length of a word without materializing it.
+     * @param id a word id below {@link #wordCount()}.
+     * @return the length of the word.
+     */
+    int length(int id) {
+        return id < dictionary.size() ? dictionary.length(id) : added[id - dictionary.size()].length();
+    }
+
+    /**
+     * Copy the chars of a word into a buffer without materializing it.
+     * @param id a word id below {@link #wordCount()}.
+     * @param buffer receives the chars; must hold at least {@link #length(int)} elements.
+     */
+    void copyChars(int id, char[] buffer) {
+        if (id < dictionary.size()) {
+            dictionary.copyChars(id, buffer);
+        } else {
+            String word = added[id - dictionary.size()];
+            word.getChars(0, word.length(), buffer, 0);
+        }
+    }
+
+    /**
+     * Get a word by id.
+     * @param id a word id below {@link #wordCount()}.
+     * @return the word.
+     */
+    String word(int id) {
+        return id < dictionary.size() ? dictionary.word(id) : added[id - dictionary.size()];
+    }
+
+    /**
+     * Check whether a word id belongs to the base dictionary, and is therefore covered by the indexes.
+     * @param id the word id.
+     * @return true for base dictionary ids.
+     */
+    boolean isIndexed(int id) {
+        return id < dictionary.size();
+    }
+
+    /**
+     * Check whether a word id refers to a word that has been removed.
+     * @param id the word id.
+     * @return true if the word was removed through the overlay.
+     */
+    boolean isRemoved(int id) {
+        return removed.get(id);
+    }
+
+    /**
+     * Get the first id of the words added through the overlay, which no index covers.
+     * @return the first overlay id; the overlay ids run up to {@link #wordCount()}.
+     */
+    int firstAddedId() {
+        return dictionary.size();
+    }
+
+    /**
+     * Get the number of pending overlay changes.
+     * @return the number of added plus removed words.
+     */
+    int overlaySize() {
+        return added.length + removed.cardinality();
+    }
+
+    /**
+     * Get every word currently in the dictionary, not counting the shared layers, in ascending order.
+     * @return the live words.
+     */
+    List<String> liveWords() {
+        List<String> words = new ArrayList<>(wordCount());
+        int a = 0;
+        for (int id = 0; id < dictionary.size(); id++) {
+            String word = dictionary.word(id);
+            while (a < added.length && added[a].compareTo(word) < 0) {
+                words.add(added[a++]);
+            }
+            if (!removed.get(id)) {
+                words.add(word);
+            }
+        }
+        while (a < added.length) {
+            words.add(added[a++]);
+        }
+        return words;
+    }
+
+    /**
+     * Get the shared snapshots this one is layered over.
+     * @return the layers, in the order they are searched after this one; not to be modified.
+     */
+    DictionarySnapshot[] sharedLayers() {
+        return sharedLayers;
+    }
+
+    CompactDictionary dictionary() {
+        return dictionary;
+    }
+
+    WordHashIndex wordIndex() {
+        return wordIndex;
+    }
+
+    DeletionIndex deletionIndex() {
+        return deletionIndex;
+    }
+
+    TrieIndex trieIndex() {
+        return trieIndex;
+    }
+
+    /**
+     * Get the word frequencies.
+     * @return the frequency table, or null if the dictionary has no frequency column.
+     */
+    FrequencyTable frequencies() {
+        return frequencies;
+    }
+
+    /**
+     * Get the frequencies of the base dictionary words, to carry them over when the snapshot is rebuilt.
+     * Words added through the overlay have none.
+     * @return the frequencies by word, or null if the dictionary has no frequency column.
+     */
+    Map<String, Long> frequencyMap() {
+        return frequencies != null ? frequencies.toMap(dictionary) : null;
+    }
+
+    NGramIndex nGramIndex() {
+        return nGramIndex;
+    }
+
+    /**
+     * Get the phonetic indexes, aligned with the similarity algorithms they were built for.
+     * @return the indexes, with null entries for algorithms that are not key-based.
+     */
+    PhoneticIndex[] phoneticIndexes() {
+        return phoneticIndexes;
+    }
+}
@@ -0,0 +1,99 @@
+package spellchecker;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Checks a document in batches of words as its results are consumed. Within a batch, repeated words
+ * are looked up once against a single dictionary snapshot, and suggestions are computed once per
+ * distinct misspelling. Only one batch is held in memory at a time, so documents of any size are
+ * checked in constant memory.
+ */
+final class DocumentChecker extends Spliterators.AbstractSpliterator<Misspelling> {
+
+    private static final int BATCH_SIZE = 4096;
+    // Marks a misspelled word whose suggestions are yet to be computed
+    private static final Suggestions PENDING = new Suggestions(new String[0], new double[0]);
+
+    private final SpellChecker spellChecker;
+    private final Tokenizer tokenizer;
+    private final int maxSuggestions;
+    private final ArrayDeque<Misspelling> pending = new ArrayDeque<>();
+    private boolean endOfDocument;
+
+    DocumentChecker(SpellChecker spellChecker, Reader document, long maxSuggestions) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.spellChecker = spellChecker;
+        this.tokenizer = new Tokenizer(document);
+        this.maxSuggestions = (int) Math.max(0, Math.min(Integer.MAX_VALUE, maxSuggestions));
+    }
+
+    /**
+     * Get the misspellings of the document as a lazily evaluated, sequential stream.
+     * @return the misspellings in document order.
+     */
+    Stream<Misspelling> stream() {
+        return StreamSupport.stream(this, false);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Misspelling> action) {
+        while (pending.isEmpty() && !endOfDocument) {
+            checkBatch();
+        }
+        if (pending.isEmpty()) {
+            return false;
+        }
+        action.accept(pending.poll());
+        return true;
+    }
+
+    // Tokenize up to BATCH_SIZE words and queue the misspelled ones with their suggestions
+    private void checkBatch() {
+        long[] offsets = new long[BATCH_SIZE];
+        String[] tokens = new String[BATCH_SIZE];
+        String[] words = new String[BATCH_SIZE];
+        int count = 0;
+        try {
+            while (count < BATCH_SIZE && tokenizer.next()) {
+                offsets[count] = tokenizer.offset();
+                tokens[count] = tokenizer.token();
+                words[count] = tokens[count].toLowerCase();
+                count++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        endOfDocument = count < BATCH_SIZE;
+
+        // Distinct lowercased words, mapped to their suggestions if misspelled or null if correct
+        Map<String, Suggestions> distinct = new HashMap<>();
+        DictionarySnapshot current = spellChecker.snapshot();
+        for (int i = 0; i < count; i++) {
+            if (!distinct.containsKey(words[i])) {
+                distinct.put(words[i], spellChecker.contains(current, words[i], null) ? null : PENDING);
+            }
+        }
+        for (Map.Entry<String, Suggestions> entry : distinct.entrySet()) {
+            if (entry.getValue() != null) {
+                entry.setValue(spellChecker.suggest(entry.getKey(), maxSuggestions));
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            Suggestions suggestions = distinct.get(words[i]);
+            if (suggestions != null) {
+                pending.add(new Misspelling(offsets[i], tokens[i], suggestions));
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package spellchecker;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The corpus frequency of every word of a {@link CompactDictionary}, one int per word id, read from the
+ * optional frequency column of a text dictionary. Frequencies turn into a prior between 0 and 1 on a
+ * logarithmic scale, so a word a thousand times more common than another is favoured by a fixed step
+ * rather than by a factor of a thousand.
+ */
+final class FrequencyTable {
+
+    private final IntBuffer counts;
+    // 1 / log(1 + the highest count), or 0 if every count is 0
+    private final double priorScale;
+
+    private FrequencyTable(IntBuffer counts) {
+        this.counts = counts;
+        int maxCount = 0;
+        for (int id = 0; id < counts.limit(); id++) {
+            maxCount = Math.max(maxCount, counts.get(id));
+        }
+        this.priorScale = maxCount > 0 ? 1.0 / Math.log1p(maxCount) : 0.0;
+    }
+
+    /**
+     * Look up the frequency of every word of a dictionary.
+     * @param dictionary the dictionary words.
+     * @param frequencies the frequencies by lowercased word; missing words have a frequency of 0, and
+     *                    frequencies above {@link Integer#MAX_VALUE} are capped.
+     * @return the table.
+     */
+    static FrequencyTable of(CompactDictionary dictionary, Map<String, Long> frequencies) {
+        int[] counts = new int[dictionary.size()];
+        for (int id = 0; id < counts.length; id++) {
+            Long frequency = frequencies.get(dictionary.word(id));
+            if (frequency != null) {
+                counts[id] = count(frequency);
+            }
+        }
+        return new FrequencyTable(IntBuffer.wrap(counts));
+    }
+
+    /**
+     * Check whether two sets of frequencies give every word the same count in a table.
+     * @param a frequencies by word, or null for none.
+     * @param b other frequencies by word, or null for none.
+     * @return true if every word has the same count, once capped, in both; a missing word counts 0.
+     */
+    static boolean sameCounts(Map<String, Long> a, Map<String, Long> b) {
+        return nonZeroCounts(a).equals(nonZeroCounts(b));
+    }
+
+    private static Map<String, Integer> nonZeroCounts(Map<String, Long> frequencies) {
+        Map<String, Integer> counts = new HashMap<>();
+        if (frequencies != null) {
+            for (Map.Entry<String, Long> entry : frequencies.entrySet()) {
+                int count = count(entry.getValue());
+                if (count > 0) {
+                    counts.put(entry.getKey(), count);
+                }
+            }
+        }
+        return counts;
+    }
+
+    // Frequencies above Integer.MAX_VALUE are capped
+    private static int count(long frequency) {
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, frequency));
+    }
+
+    /**
+     * Read a table previously written with {@link #write(DictionaryImage.Writer)}.
+     * @param reader the image being read.
+     * @param dictionary the dictionary the table was built for.
+     * @return the table, backed by the image.
+     */
+    static FrequencyTable read(DictionaryImage.Reader reader, CompactDictionary dictionary) throws IOException {
+        IntBuffer counts = reader.readInts();
+        if (counts.limit() != dictionary.size()) {
+            throw new IOException("Corrupt frequency table of " + counts.limit() + " words for a dictionary of "
+                    + dictionary.size());
+        }
+        return new FrequencyTable(counts);
+    }
+
+    /**
+     * Write the table into a dictionary image.
+     * @param writer the image being written.
+     */
+    void write(DictionaryImage.Writer writer) throws IOException {
+        writer.writeInts(counts);
+    }
+
+    /**
+     * Get the frequency of a word.
+     * @param id a word id; ids past the dictionary, such as those of overlay words, have a frequency of 0.
+     * @return the frequency.
+     */
+    int count(int id) {
+        return id < counts.limit() ? counts.get(id) : 0;
+    }
+
+    /**
+     * Get the prior of a word: the logarithm of its frequency relative to that of the most frequent word.
+     * @param id a word id.
+     * @return the prior, from 0 for words never seen to 1 for the most frequent word.
+     */
+    double prior(int id) {
+        return Math.log1p(count(id)) * priorScale;
+    }
+
+    /**
+     * Get the frequencies of the words with a non-zero frequency, to carry them over into a rebuilt dictionary.
+     * @param dictionary the dictionary the table was built for.
+     * @return the frequencies by word.
+     */
+    Map<String, Long> toMap(CompactDictionary dictionary) {
+        Map<String, Long> frequencies = new HashMap<>();
+        for (int id = 0; id < counts.limit(); id++) {
+            if (counts.get(id) > 0) {
+                frequencies.put(dictionary.word(id), (long) counts.get(id));
+            }
+        }
+        return frequencies;
+    }
+}
@@ -0,0 +1,218 @@
+package spellchecker;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.DefaultAsyncHttpClient;
+import org.asynchttpclient.DefaultAsyncHttpClientConfig;
+import org.asynchttpclient.Response;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Suggests corrections through the Ginger spell checking API, falling back to a local provider whenever
+ * the service is unavailable, too slow or answers with an error.
+ *
+ * <p>Calls never block: they go through one pooled, keep-alive HTTP client shared by every request, and
+ * the response is parsed, or the fallback computed, on a separate executor rather than on the client's
+ * I/O threads. Concurrent requests for the same word share one call, and answers are kept in a small
+ * least recently used cache; fallback results are not cached, so the service is asked again next time.</p>
+ *
+ * <p>The service does not score its suggestions, so each one has a score of 1 and they keep the order
+ * the service gave them in.</p>
+ */
+public final class GingerSuggestionProvider implements SuggestionProvider, Closeable {
+
+    /** The public Ginger endpoint, used unless another one is given. */
+    public static final String DEFAULT_ENDPOINT =
+            "https://ginger4.p.rapidapi.com/correction?lang=US&generateRecommendations=false&flagInformalLanguage=true";
+    /** The environment variable {@link #fromEnvironment} reads the API key from. */
+    public static final String API_KEY_VARIABLE = "GINGER_API_KEY";
+
+    private static final long DEFAULT_TIMEOUT_MILLIS = 3000;
+    private static final int DEFAULT_CACHE_ENTRIES = 1024;
+    private static final int MAX_CONNECTIONS = 16;
+
+    private final String endpoint;
+    private final String apiKey;
+    private final SuggestionProvider fallback;
+    private final AsyncHttpClient client;
+    private final Executor executor;
+    private final InFlightRequests<String, Suggestions> inFlight = new InFlightRequests<>();
+    // The suggestions of the service by lowercased word, in access order
+    private final Map<String, Suggestions> cache;
+    private volatile SpellCheckerListener listener;
+
+    /**
+     * Create a provider.
+     * @param endpoint the URL to post words to, such as {@link #DEFAULT_ENDPOINT} or a local stub.
+     * @param apiKey the API key sent to the service, or null to always use the fallback.
+     * @param fallback the provider used when the service cannot answer, usually the local spell checker.
+     * @param timeoutMillis the time after which a call is abandoned for the fallback.
+     * @param cacheEntries the number of words whose answers are cached; 0 disables the cache.
+     */
+    public GingerSuggestionProvider(String endpoint, String apiKey, SuggestionProvider fallback, long timeoutMillis,
+                                    int cacheEntries) {
+        this.endpoint = Objects.requireNonNull(endpoint);
+        this.apiKey = apiKey;
+        this.fallback = Objects.requireNonNull(fallback);
+        this.executor = ForkJoinPool.commonPool();
+        this.client = new DefaultAsyncHttpClient(new DefaultAsyncHttpClientConfig.Builder()
+                .setConnectTimeout((int) Math.min(Integer.MAX_VALUE, timeoutMillis))
+                .setRequestTimeout((int) Math.min(Integer.MAX_VALUE, timeoutMillis))
+                .setReadTimeout((int) Math.min(Integer.MAX_VALUE, timeoutMillis))
+                .setKeepAlive(true)
+                .setMaxConnectionsPerHost(MAX_CONNECTIONS)
+                .setThreadPoolName("ginger-client")
+                .build());
+        this.cache = new LinkedHashMap<String, Suggestions>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Suggestions> eldest) {
+                return size() > cacheEntries;
+            }
+        };
+    }
+
+    /**
+     * Create a provider for the public endpoint, reading the API key from the {@code GINGER_API_KEY}
+     * environment variable. Without it every request uses the fallback.
+     * @param fallback the provider used when the service cannot answer.
+     * @return the provider.
+     */
+    public static GingerSuggestionProvider fromEnvironment(SuggestionProvider fallback) {
+        return new GingerSuggestionProvider(DEFAULT_ENDPOINT, System.getenv(API_KEY_VARIABLE), fallback,
+                DEFAULT_TIMEOUT_MILLIS, DEFAULT_CACHE_ENTRIES);
+    }
+
+    // Attach a listener that is told the time and outcome of every call to the service, separately from
+    // the local engine's own timings; replaces any attached before
+    public void setListener(SpellCheckerListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public Suggestions suggest(String word, int maxSuggestions) {
+        return suggestAsync(word, maxSuggestions).join();
+    }
+
+    @Override
+    public CompletableFuture<Suggestions> suggestAsync(String word, int maxSuggestions) {
+        String text = word.trim();
+        // The service is sent the word as typed; only the cache and in-flight requests ignore its casing
+        String key = text.toLowerCase();
+        int limit = Math.max(0, maxSuggestions);
+        Suggestions cached = cached(key);
+        if (cached != null) {
+            SpellCheckerListener currentListener = listener;
+            if (currentListener != null) {
+                currentListener.remoteCheckCompleted(0, true, true);
+            }
+            return CompletableFuture.completedFuture(cached.prefix(limit));
+        }
+        if (apiKey == null) {
+            return CompletableFuture.supplyAsync(() -> fallback.suggest(text, limit), executor);
+        }
+
+        return inFlight.getAsync(key, () -> call(key, text))
+                .thenApply(suggestions -> suggestions.prefix(limit))
+                .exceptionally(error -> fallback.suggest(text, limit));
+    }
+
+    // Post the word to the service and cache the answer under the key; the future fails if the service
+    // does not answer in time, answers with another status than 200 or with a body that cannot be parsed
+    private CompletableFuture<Suggestions> call(String key, String text) {
+        SpellCheckerListener currentListener = listener;
+        long startTime = System.nanoTime();
+        return client.preparePost(endpoint)
+                .setHeader("content-type", "text/plain")
+                .setHeader("X-RapidAPI-Key", apiKey)
+                .setBody(text)
+                .execute()
+                .toCompletableFuture()
+                .handleAsync((response, error) -> {
+                    // Reported once the answer is parsed, so a malformed 200 counts as a failure
+                    boolean succeeded = false;
+                    try {
+                        if (error != null) {
+                            throw new RemoteCheckException("Ginger request failed: " + error, error);
+                        }
+                        if (response.getStatusCode() != 200) {
+                            throw new RemoteCheckException("Ginger answered " + response.getStatusCode(), null);
+                        }
+                        Suggestions suggestions = parse(response);
+                        succeeded = true;
+                        synchronized (cache) {
+                            cache.put(key, suggestions);
+                        }
+                        return suggestions;
+                    } finally {
+                        if (currentListener != null) {
+                            currentListener.remoteCheckCompleted(System.nanoTime() - startTime, succeeded, false);
+                        }
+                    }
+                }, executor);
+    }
+
+    private Suggestions cached(String key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    // Take the suggestions of every correction in the response, in order and without duplicates
+    private static Suggestions parse(Response response) {
+        List<String> words = new ArrayList<>();
+        JsonObject result = JsonParser.parseString(response.getResponseBody()).getAsJsonObject()
+                .getAsJsonObject("GingerTheDocumentResult");
+        if (result == null) {
+            throw new RemoteCheckException("Invalid response format", null);
+        }
+        JsonArray corrections = result.getAsJsonArray("Corrections");
+        if (corrections != null) {
+            for (JsonElement correction : corrections) {
+                JsonArray suggestions = correction.getAsJsonObject().getAsJsonArray("Suggestions");
+                if (suggestions == null) {
+                    continue;
+                }
+                for (JsonElement suggestion : suggestions) {
+                    String text = suggestion.getAsJsonObject().get("Text").getAsString().toLowerCase();
+                    if (!words.contains(text)) {
+                        words.add(text);
+                    }
+                }
+            }
+        }
+        double[] scores = new double[words.size()];
+        Arrays.fill(scores, 1.0);
+        return new Suggestions(words.toArray(new String[0]), scores);
+    }
+
+    // Close the shared client; the provider cannot be used afterwards
+    @Override
+    public void close() throws IOException {
+        client.close();
+    }
+
+    /**
+     * Thrown inside the provider when the service cannot answer, so the call falls back to the local provider.
+     */
+    static final class RemoteCheckException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        RemoteCheckException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
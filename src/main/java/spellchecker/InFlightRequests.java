@@ -0,0 +1,90 @@
+package spellchecker;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent requests for the same key share one computation: the first caller computes the value
+ * and everyone asking for the key while it does waits for that result instead of computing it again.
+ * Computations run either on the first caller's thread or asynchronously.
+ * Nothing is remembered once the computation is done; that is what the caches are for.
+ * @param <K> the key type.
+ * @param <V> the value type.
+ */
+final class InFlightRequests<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Get the value for a key, computing it on the calling thread unless another caller already is.
+     * @param key the key.
+     * @param compute computes the value.
+     * @return the value.
+     * @throws RuntimeException whatever the computation threw, also rethrown to the callers that shared it.
+     */
+    V get(K key, Supplier<V> compute) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        try {
+            V value = compute.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Get the value for a key asynchronously, starting the computation unless one is already running.
+     * @param key the key.
+     * @param compute starts the computation; called at most once per key at a time.
+     * @return a future of the value, shared by every caller asking for the key while it is computed.
+     */
+    CompletableFuture<V> getAsync(K key, Supplier<CompletableFuture<V>> compute) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            return existing;
+        }
+
+        CompletableFuture<V> started;
+        try {
+            started = compute.get();
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+            return mine;
+        }
+        started.whenComplete((value, error) -> {
+            // Removed before completing, so a caller arriving after the result starts a new computation
+            inFlight.remove(key, mine);
+            if (error != null) {
+                mine.completeExceptionally(error);
+            } else {
+                mine.complete(value);
+            }
+        });
+        return mine;
+    }
+
+    /**
+     * Get the number of computations currently running.
+     * @return the number of keys in flight.
+     */
+    int size() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,85 @@
+package spellchecker;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations in power-of-two nanosecond buckets. Percentiles are reported as
+ * the upper bound of the bucket they fall in, so they are accurate to within a factor of two, which is
+ * enough to tell a regression from noise at a fixed cost of a few increments per recording.
+ */
+final class LatencyHistogram {
+
+    // Bucket i holds durations below 2^i ns, and at least 2^(i-1) ns for i > 0
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * Record one duration.
+     * @param nanos the duration; negative durations count as 0.
+     */
+    void record(long nanos) {
+        long duration = Math.max(0, nanos);
+        counts.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(duration)));
+        count.increment();
+        totalNanos.add(duration);
+    }
+
+    /**
+     * Get the number of durations recorded.
+     * @return the count.
+     */
+    long count() {
+        return count.sum();
+    }
+
+    /**
+     * Get the mean of the recorded durations.
+     * @return the mean in nanoseconds, or 0 if nothing was recorded.
+     */
+    double meanNanos() {
+        long n = count.sum();
+        return n > 0 ? (double) totalNanos.sum() / n : 0.0;
+    }
+
+    /**
+     * Get an upper bound of a percentile of the recorded durations.
+     * @param percentile the percentile, from 0 to 100.
+     * @return the upper bound of the bucket holding the percentile in nanoseconds, or 0 if nothing was recorded.
+     */
+    long percentileNanos(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(percentile / 100 * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank && seen > 0) {
+                return i == BUCKETS - 1 ? Long.MAX_VALUE : 1L << i;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Forget every recorded duration.
+     */
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        totalNanos.reset();
+    }
+}
@@ -0,0 +1,36 @@
+package spellchecker;
+
+/**
+ * A misspelled word found in a document, with the corrections suggested for it.
+ */
+public final class Misspelling {
+    private final long offset;
+    private final String token;
+    private final Suggestions suggestions;
+
+    Misspelling(long offset, String token, Suggestions suggestions) {
+        this.offset = offset;
+        this.token = token;
+        this.suggestions = suggestions;
+    }
+
+    // The number of chars preceding the word in the document
+    public long getOffset() {
+        return offset;
+    }
+
+    // The word as it appears in the document
+    public String getToken() {
+        return token;
+    }
+
+    // The suggested corrections, best first, as returned by SpellChecker.suggest
+    public Suggestions getSuggestions() {
+        return suggestions;
+    }
+
+    @Override
+    public String toString() {
+        return offset + ":" + token + "=" + suggestions;
+    }
+}
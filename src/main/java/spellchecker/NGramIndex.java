@@ -0,0 +1,138 @@
+package spellchecker;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * An inverted index from character n-grams to the ids of the dictionary words containing them.
+ * A query is answered by a count-merge of the posting lists of its n-grams: every posting
+ * increments a counter for its word, which yields the n-gram overlap of each word that shares at
+ * least one n-gram with the query without looking at any other word.
+ */
+final class NGramIndex {
+
+    private static final ThreadLocal<int[]> COUNTERS = ThreadLocal.withInitial(() -> new int[0]);
+    // The ids whose counters were touched; common n-grams touch a large part of the dictionary, so the
+    // buffer is kept rather than regrown on every query
+    private static final ThreadLocal<int[]> TOUCHED = ThreadLocal.withInitial(() -> new int[64]);
+
+    private final int nGramSize;
+    private final IntBuffer gramCounts;
+    private final PostingIndex postings;
+
+    private NGramIndex(int nGramSize, IntBuffer gramCounts, PostingIndex postings) {
+        this.nGramSize = nGramSize;
+        this.gramCounts = gramCounts;
+        this.postings = postings;
+    }
+
+    /**
+     * Build the index for a dictionary.
+     * @param dictionary the dictionary words.
+     * @param nGramSize the length of the character n-grams.
+     */
+    NGramIndex(CompactDictionary dictionary, int nGramSize) {
+        this.nGramSize = nGramSize;
+        int[] counts = new int[dictionary.size()];
+
+        PostingIndex.Builder builder = new PostingIndex.Builder();
+        char[] word = new char[16];
+        int[] grams = new int[17];
+        for (int id = 0; id < counts.length; id++) {
+            int length = dictionary.length(id);
+            if (word.length < length) {
+                word = new char[length];
+                grams = new int[length + 1];
+            }
+            dictionary.copyChars(id, word);
+            counts[id] = SimilarityKernels.nGramKeys(word, length, nGramSize, grams);
+            for (int i = 0; i < counts[id]; i++) {
+                builder.add(grams[i], id);
+            }
+        }
+        gramCounts = IntBuffer.wrap(counts);
+        postings = builder.build();
+    }
+
+    /**
+     * Read an index previously written with {@link #write(DictionaryImage.Writer)}.
+     * @param reader the image being read.
+     * @return the index, backed by the image.
+     */
+    static NGramIndex read(DictionaryImage.Reader reader) throws IOException {
+        int nGramSize = reader.readInt();
+        IntBuffer gramCounts = reader.readInts();
+        return new NGramIndex(nGramSize, gramCounts, PostingIndex.read(reader));
+    }
+
+    /**
+     * Write the index into a dictionary image.
+     * @param writer the image being written.
+     */
+    void write(DictionaryImage.Writer writer) throws IOException {
+        writer.writeInt(nGramSize);
+        writer.writeInts(gramCounts);
+        postings.write(writer);
+    }
+
+    /**
+     * Get the words with the highest n-gram Jaccard similarity to a query already split into n-grams.
+     * @param queryGrams the sorted, distinct n-gram keys of the query, see {@link SimilarityKernels#nGramKeys}.
+     * @param queryCount the number of keys of the query.
+     * @param k the maximum number of word ids to return.
+     * @return the word ids ordered by descending Jaccard similarity.
+     */
+    int[] topKByJaccard(int[] queryGrams, int queryCount, int k) {
+        if (queryCount == 0 || k <= 0) {
+            return new int[0];
+        }
+
+        int[] counters = COUNTERS.get();
+        if (counters.length < gramCounts.limit()) {
+            counters = new int[gramCounts.limit()];
+            COUNTERS.set(counters);
+        }
+
+        // Count-merge the posting lists, remembering which counters were touched so only those are reset
+        int[] touched = TOUCHED.get();
+        int touchedCount = 0;
+        for (int q = 0; q < queryCount; q++) {
+            int slot = postings.find(queryGrams[q]);
+            if (slot < 0) {
+                continue;
+            }
+            for (int i = postings.start(slot); i < postings.end(slot); i++) {
+                int id = postings.posting(i);
+                if (counters[id]++ == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                        TOUCHED.set(touched);
+                    }
+                    touched[touchedCount++] = id;
+                }
+            }
+        }
+
+        // Keep the best k in a min-heap ordered by Jaccard similarity
+        TopK best = new TopK(Math.min(k, touchedCount));
+        for (int t = 0; t < touchedCount; t++) {
+            int id = touched[t];
+            int overlap = counters[id];
+            counters[id] = 0;
+            best.offer(id, (double) overlap / (queryCount + gramCounts.get(id) - overlap));
+        }
+
+        int[] result = new int[best.size()];
+        best.drainDescending(result, null);
+        return result;
+    }
+
+    /**
+     * Get the n-gram size the index was built with.
+     * @return the n-gram size.
+     */
+    int nGramSize() {
+        return nGramSize;
+    }
+}
@@ -0,0 +1,115 @@
+package spellchecker;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Precomputed keys of a key-based {@link StringSimilarityAlgorithm} (such as Metaphone or Soundex)
+ * for every dictionary word, bucketed by key. Dictionary words are encoded once when the index is
+ * built, so a query only needs to be encoded once to find all of its matches.
+ * The distinct keys are stored in their own {@link CompactDictionary}, and every word only keeps
+ * the id of its key, so matching a word against the query is an int comparison.
+ */
+final class PhoneticIndex {
+
+    private static final int[] NO_IDS = new int[0];
+    private static final int NO_KEY = -1;
+
+    private final CompactDictionary keys;
+    private final IntBuffer keyIds;
+    private final PostingIndex buckets;
+
+    private PhoneticIndex(CompactDictionary keys, IntBuffer keyIds, PostingIndex buckets) {
+        this.keys = keys;
+        this.keyIds = keyIds;
+        this.buckets = buckets;
+    }
+
+    /**
+     * Encode every dictionary word and build the buckets.
+     * @param dictionary the dictionary words.
+     * @param algorithm the key-based algorithm used to encode the words.
+     */
+    PhoneticIndex(CompactDictionary dictionary, StringSimilarityAlgorithm algorithm) {
+        String[] wordKeys = new String[dictionary.size()];
+        Set<String> distinctKeys = new HashSet<>();
+        for (int id = 0; id < wordKeys.length; id++) {
+            wordKeys[id] = algorithm.encodeKey(dictionary.word(id));
+            if (wordKeys[id] != null) {
+                distinctKeys.add(wordKeys[id]);
+            }
+        }
+        this.keys = CompactDictionary.of(distinctKeys);
+
+        int[] ids = new int[wordKeys.length];
+        PostingIndex.Builder builder = new PostingIndex.Builder();
+        for (int id = 0; id < wordKeys.length; id++) {
+            ids[id] = wordKeys[id] != null ? keys.indexOf(wordKeys[id], null) : NO_KEY;
+            if (ids[id] != NO_KEY) {
+                builder.add(ids[id], id);
+            }
+        }
+        this.keyIds = IntBuffer.wrap(ids);
+        this.buckets = builder.build();
+    }
+
+    /**
+     * Read an index previously written with {@link #write(DictionaryImage.Writer)}.
+     * @param reader the image being read.
+     * @return the index, backed by the image.
+     */
+    static PhoneticIndex read(DictionaryImage.Reader reader) throws IOException {
+        CompactDictionary keys = CompactDictionary.read(reader);
+        IntBuffer keyIds = reader.readInts();
+        return new PhoneticIndex(keys, keyIds, PostingIndex.read(reader));
+    }
+
+    /**
+     * Write the index into a dictionary image.
+     * @param writer the image being written.
+     */
+    void write(DictionaryImage.Writer writer) throws IOException {
+        keys.write(writer);
+        writer.writeInts(keyIds);
+        buckets.write(writer);
+    }
+
+    /**
+     * Look up the key of a query once so it can be matched against the dictionary words.
+     * @param key the key of the query, as encoded by the algorithm; may be null.
+     * @return the id of the query's key, or -1 if no dictionary word shares it.
+     */
+    int queryKeyId(String key) {
+        return key != null ? keys.indexOf(key, null) : NO_KEY;
+    }
+
+    /**
+     * Check whether a dictionary word has the same key as the query.
+     * @param id the word id.
+     * @param queryKeyId the result of {@link #queryKeyId(String)}.
+     * @return true if the keys are equal.
+     */
+    boolean matches(int id, int queryKeyId) {
+        return queryKeyId != NO_KEY && keyIds.get(id) == queryKeyId;
+    }
+
+    /**
+     * Get the ids of all dictionary words sharing the query's key.
+     * @param queryKeyId the result of {@link #queryKeyId(String)}.
+     * @return the matching word ids in ascending order.
+     */
+    int[] bucket(int queryKeyId) {
+        int slot = queryKeyId != NO_KEY ? buckets.find(queryKeyId) : -1;
+        if (slot < 0) {
+            return NO_IDS;
+        }
+
+        int[] ids = new int[buckets.end(slot) - buckets.start(slot)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = buckets.posting(buckets.start(slot) + i);
+        }
+        return ids;
+    }
+}
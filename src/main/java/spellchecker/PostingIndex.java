@@ -0,0 +1,152 @@
+package spellchecker;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * A read-only multimap from int keys to word ids, stored as three flat primitive buffers.
+ * Keys are kept sorted so a lookup is a binary search, and the ids for each key are stored
+ * contiguously (and sorted) in one shared postings buffer. The buffers either wrap heap arrays
+ * or are views of a memory-mapped {@link DictionaryImage}.
+ */
+final class PostingIndex {
+
+    private final IntBuffer keys;
+    private final IntBuffer offsets;
+    private final IntBuffer postings;
+
+    private PostingIndex(IntBuffer keys, IntBuffer offsets, IntBuffer postings) {
+        this.keys = keys;
+        this.offsets = offsets;
+        this.postings = postings;
+    }
+
+    /**
+     * Read an index previously written with {@link #write(DictionaryImage.Writer)}.
+     * @param reader the image being read.
+     * @return the index, backed by the image.
+     */
+    static PostingIndex read(DictionaryImage.Reader reader) throws IOException {
+        return new PostingIndex(reader.readInts(), reader.readInts(), reader.readInts());
+    }
+
+    /**
+     * Write the index into a dictionary image.
+     * @param writer the image being written.
+     */
+    void write(DictionaryImage.Writer writer) throws IOException {
+        writer.writeInts(keys);
+        writer.writeInts(offsets);
+        writer.writeInts(postings);
+    }
+
+    /**
+     * Find the slot holding the given key.
+     * @param key the key to look up.
+     * @return the slot of the key, or -1 if the key is not present.
+     */
+    int find(int key) {
+        int low = 0;
+        int high = keys.limit() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midKey = keys.get(mid);
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the index of the first posting of a slot.
+     * @param slot a slot returned by {@link #find(int)}.
+     * @return the inclusive start index into the postings.
+     */
+    int start(int slot) {
+        return offsets.get(slot);
+    }
+
+    /**
+     * Get the index just past the last posting of a slot.
+     * @param slot a slot returned by {@link #find(int)}.
+     * @return the exclusive end index into the postings.
+     */
+    int end(int slot) {
+        return offsets.get(slot + 1);
+    }
+
+    /**
+     * Get the word id stored at a posting index.
+     * @param index an index between {@link #start(int)} and {@link #end(int)}.
+     * @return the word id.
+     */
+    int posting(int index) {
+        return postings.get(index);
+    }
+
+    /**
+     * Collects (key, id) pairs and packs them into a {@link PostingIndex}.
+     */
+    static final class Builder {
+        private long[] pairs = new long[1024];
+        private int size;
+
+        /**
+         * Add a posting for a key. Duplicate pairs are removed when the index is built.
+         * @param key the key.
+         * @param id the word id, must not be negative.
+         */
+        void add(int key, int id) {
+            if (size == pairs.length) {
+                pairs = Arrays.copyOf(pairs, size * 2);
+            }
+            pairs[size++] = ((long) key << 32) | id;
+        }
+
+        /**
+         * Sort the collected pairs and build the index.
+         * @return the packed index.
+         */
+        PostingIndex build() {
+            Arrays.sort(pairs, 0, size);
+
+            int distinctPairs = 0;
+            int distinctKeys = 0;
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || pairs[i] != pairs[i - 1]) {
+                    distinctPairs++;
+                    if (i == 0 || (int) (pairs[i] >> 32) != (int) (pairs[i - 1] >> 32)) {
+                        distinctKeys++;
+                    }
+                }
+            }
+
+            int[] keys = new int[distinctKeys];
+            int[] offsets = new int[distinctKeys + 1];
+            int[] postings = new int[distinctPairs];
+            int k = -1;
+            int p = 0;
+            for (int i = 0; i < size; i++) {
+                if (i > 0 && pairs[i] == pairs[i - 1]) {
+                    continue;
+                }
+                int key = (int) (pairs[i] >> 32);
+                if (k < 0 || keys[k] != key) {
+                    keys[++k] = key;
+                    offsets[k] = p;
+                }
+                postings[p++] = (int) pairs[i];
+            }
+            offsets[distinctKeys] = p;
+
+            pairs = null;
+            return new PostingIndex(IntBuffer.wrap(keys), IntBuffer.wrap(offsets), IntBuffer.wrap(postings));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package spellchecker;
+
+/**
+ * A dictionary word ready to be compared with a {@link PreparedQuery}. While ranking, the spell checker
+ * keeps one entry per thread and points it at each word in turn, copied into a scratch buffer, so an
+ * algorithm working on the chars needs no String for the word; {@link #getText()} materializes one
+ * only for algorithms that ask for it. An entry is not safe for use by several threads at once.
+ */
+public final class PreparedEntry {
+
+    private char[] chars;
+    private int length;
+    // Materialized on demand
+    private String text;
+    // Null to use the buffers of the calling thread
+    private final SimilarityKernels.Scratch scratch;
+
+    /**
+     * Prepare a single word.
+     * @param word the lowercased word.
+     */
+    public PreparedEntry(String word) {
+        this.chars = word.toCharArray();
+        this.length = chars.length;
+        this.text = word;
+        this.scratch = null;
+    }
+
+    /**
+     * Create an entry to be pointed at words with {@link #set(char[], int)}.
+     * @param scratch the buffers of the thread using the entry.
+     */
+    PreparedEntry(SimilarityKernels.Scratch scratch) {
+        this.chars = new char[0];
+        this.scratch = scratch;
+    }
+
+    /**
+     * Point the entry at another word.
+     * @param chars a buffer holding the chars of the word; it is not copied.
+     * @param length the number of chars of the word.
+     */
+    void set(char[] chars, int length) {
+        this.chars = chars;
+        this.length = length;
+        this.text = null;
+    }
+
+    // The word, as a String created on the first call
+    public String getText() {
+        if (text == null) {
+            text = new String(chars, 0, length);
+        }
+        return text;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    char[] chars() {
+        return chars;
+    }
+
+    SimilarityKernels.Scratch scratch() {
+        return scratch != null ? scratch : SimilarityKernels.scratch();
+    }
+}
@@ -0,0 +1,177 @@
+package spellchecker;
+
+import java.util.List;
+
+/**
+ * A query word preprocessed once per request: lowercased, copied into a char array, split into its
+ * n-gram keys and encoded by every key-based algorithm, so that scoring it against every candidate
+ * word repeats none of that work. It also carries the lowest similarity the caller makes use of, and
+ * the range of word lengths that can reach it. Get one from {@link SpellChecker#prepare(String)} and
+ * compare it with dictionary words through
+ * {@link StringSimilarityAlgorithm#calculateSimilarity(PreparedQuery, PreparedEntry)}.
+ */
+public final class PreparedQuery {
+
+    private final String text;
+    private final char[] chars;
+    private final int[] nGramKeys;
+    private final int nGramCount;
+    private final double minSimilarity;
+    private final int minLength;
+    private final int maxLength;
+    private final List<StringSimilarityAlgorithm> algorithms;
+    // Keys by algorithm index; null for algorithms that are not key-based or that the plan does not run
+    private final String[] keys;
+    // The plan whose algorithms were encoded; null if every key-based algorithm was
+    private final ScoringPlan plan;
+
+    /**
+     * Prepare a query.
+     * @param text the lowercased query word.
+     * @param nGramSize the n-gram size used for the n-gram similarity.
+     * @param minSimilarity the lowest similarity of interest; algorithms may stop short of lower ones.
+     * @param algorithms the algorithms the query is scored with; key-based ones encode it here.
+     */
+    PreparedQuery(String text, int nGramSize, double minSimilarity, List<StringSimilarityAlgorithm> algorithms) {
+        this(text, nGramSize, minSimilarity, algorithms, null);
+    }
+
+    /**
+     * Prepare a query for a scoring plan, with its threshold as the minimum similarity. Key-based algorithms
+     * the plan does not run are not encoded.
+     * @param text the lowercased query word.
+     * @param nGramSize the n-gram size used for the n-gram similarity.
+     * @param plan the plan the query is scored with.
+     * @param algorithms the algorithms the plan was resolved against.
+     */
+    PreparedQuery(String text, int nGramSize, ScoringPlan plan, List<StringSimilarityAlgorithm> algorithms) {
+        this(text, nGramSize, plan.threshold(), algorithms, plan);
+    }
+
+    private PreparedQuery(String text, int nGramSize, double minSimilarity, List<StringSimilarityAlgorithm> algorithms,
+                          ScoringPlan plan) {
+        this.text = text;
+        this.chars = text.toCharArray();
+        this.nGramKeys = new int[chars.length + 1];
+        this.nGramCount = SimilarityKernels.nGramKeys(chars, chars.length, nGramSize, nGramKeys);
+        this.minSimilarity = minSimilarity;
+        this.minLength = minLength(chars.length, minSimilarity);
+        this.maxLength = maxLength(chars.length, minSimilarity);
+        this.algorithms = algorithms;
+        this.plan = plan;
+        this.keys = new String[algorithms.size()];
+        for (int i = 0; i < keys.length; i++) {
+            if (algorithms.get(i).isKeyBased() && isEncoded(i)) {
+                keys[i] = algorithms.get(i).encodeKey(text);
+            }
+        }
+    }
+
+    // The lowercased query word
+    public String getText() {
+        return text;
+    }
+
+    public int getLength() {
+        return chars.length;
+    }
+
+    // The lowest similarity the caller makes use of; algorithms may return any lower value in place of one below it
+    public double getMinSimilarity() {
+        return minSimilarity;
+    }
+
+    /**
+     * Get the shortest length a word may have to reach the minimum similarity by Damerau-Levenshtein
+     * similarity. A word of another length is at least the difference in length away, which bounds its
+     * similarity by the ratio of the shorter to the longer length.
+     * @return the shortest length worth comparing.
+     */
+    public int getMinLength() {
+        return minLength;
+    }
+
+    /**
+     * Get the longest length a word may have to reach the minimum similarity by Damerau-Levenshtein similarity.
+     * @return the longest length worth comparing; {@link Integer#MAX_VALUE} if there is no limit.
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Get the key of the query for a key-based algorithm, such as its phonetic code.
+     * @param algorithm the algorithm.
+     * @return the key encoded when the query was prepared, or encoded now if the algorithm was not among
+     *         those the query was prepared for or its plan does not run it; null if the query has no key.
+     */
+    public String getKey(StringSimilarityAlgorithm algorithm) {
+        for (int i = 0; i < keys.length; i++) {
+            if (algorithms.get(i) == algorithm && isEncoded(i)) {
+                return keys[i];
+            }
+        }
+        return algorithm.encodeKey(text);
+    }
+
+    /**
+     * Get the key of the query for an algorithm by index.
+     * @param algorithm the index of the algorithm among those the query was prepared for.
+     * @return the key, or null if the algorithm is not key-based, is not run by the plan the query was prepared
+     *         for, or the query has no key.
+     */
+    String key(int algorithm) {
+        return keys[algorithm];
+    }
+
+    private boolean isEncoded(int algorithm) {
+        return plan == null || plan.runs(algorithm);
+    }
+
+    char[] chars() {
+        return chars;
+    }
+
+    /**
+     * Get the distinct n-gram keys of the query, see {@link SimilarityKernels#nGramKeys}.
+     * @return the sorted keys; only the first {@link #nGramCount()} elements are used.
+     */
+    int[] nGramKeys() {
+        return nGramKeys;
+    }
+
+    int nGramCount() {
+        return nGramCount;
+    }
+
+    // The bounds are found with the same floating point expression as the similarity, so no word is cut off
+    private static int minLength(int length, double minSimilarity) {
+        int minLength = (int) Math.max(0, Math.min(length, Math.ceil(minSimilarity * length)));
+        while (minLength > 0 && lengthSimilarity(length, minLength - 1) >= minSimilarity) {
+            minLength--;
+        }
+        while (minLength < length && lengthSimilarity(length, minLength) < minSimilarity) {
+            minLength++;
+        }
+        return minLength;
+    }
+
+    private static int maxLength(int length, double minSimilarity) {
+        if (!(minSimilarity > 0)) {
+            return Integer.MAX_VALUE;
+        }
+        int maxLength = (int) Math.max(length, Math.min(Integer.MAX_VALUE - 1, Math.floor(length / minSimilarity)));
+        while (maxLength < Integer.MAX_VALUE && lengthSimilarity(maxLength + 1, length) >= minSimilarity) {
+            maxLength++;
+        }
+        while (maxLength > length && lengthSimilarity(maxLength, length) < minSimilarity) {
+            maxLength--;
+        }
+        return maxLength;
+    }
+
+    // The highest Damerau-Levenshtein similarity of two words of the given lengths, longer first
+    private static double lengthSimilarity(int longer, int shorter) {
+        return longer > 0 ? 1.0 - ((double) (longer - shorter) / longer) : 1.0;
+    }
+}
@@ -0,0 +1,196 @@
+package spellchecker;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Tunes how suggestions are scored: the similarity threshold, which similarity algorithms run, how
+ * much each one weighs, and how much word frequencies count when the dictionary has them. Algorithms
+ * are referred to by {@link StringSimilarityAlgorithm#getName()}. Disabled algorithms are not run at
+ * all, so they cost nothing at query time.
+ *
+ * <p>A configuration can be read from a properties file such as:</p>
+ * <pre>
+ * threshold=0.7
+ * algorithms=metaphone,soundex,jaro-winkler,damerau-levenshtein
+ * weight.jaro-winkler=0.9
+ * frequencyWeight=0.2
+ * </pre>
+ * <p>Every key is optional; missing ones keep the algorithm's declared weight, all algorithms enabled
+ * and the default threshold and frequency weight.</p>
+ */
+public final class ScoringConfig {
+
+    /** The threshold a similarity must reach for its algorithm to count towards the score. */
+    public static final double DEFAULT_THRESHOLD = 0.7;
+
+    /**
+     * The share of the score given to the frequency prior of a word, when the dictionary has frequencies.
+     * The rest of the score is the similarity, so at this weight frequency breaks near ties without
+     * outranking a clearly closer word.
+     */
+    public static final double DEFAULT_FREQUENCY_WEIGHT = 0.2;
+
+    /** Every algorithm enabled with its declared weight, and the default threshold and frequency weight. */
+    public static final ScoringConfig DEFAULT = new ScoringConfig(DEFAULT_THRESHOLD, null, Collections.emptyMap());
+
+    private static final String THRESHOLD_KEY = "threshold";
+    private static final String ALGORITHMS_KEY = "algorithms";
+    private static final String WEIGHT_PREFIX = "weight.";
+    private static final String FREQUENCY_WEIGHT_KEY = "frequencyWeight";
+
+    private final double threshold;
+    // Null when every algorithm is enabled
+    private final Set<String> enabledAlgorithms;
+    private final Map<String, Double> weights;
+    private final double frequencyWeight;
+
+    /**
+     * Create a configuration with the default frequency weight.
+     * @param threshold the similarity an algorithm must reach to count, from 0 to 1.
+     * @param enabledAlgorithms the names of the algorithms to run, or null to run all of them.
+     * @param weights weights by algorithm name, overriding the declared weights; must not be negative.
+     * @throws IllegalArgumentException if the threshold or a weight is out of range.
+     */
+    public ScoringConfig(double threshold, Set<String> enabledAlgorithms, Map<String, Double> weights) {
+        this(threshold, enabledAlgorithms, weights, DEFAULT_FREQUENCY_WEIGHT);
+    }
+
+    /**
+     * Create a configuration.
+     * @param threshold the similarity an algorithm must reach to count, from 0 to 1.
+     * @param enabledAlgorithms the names of the algorithms to run, or null to run all of them.
+     * @param weights weights by algorithm name, overriding the declared weights; must not be negative.
+     * @param frequencyWeight the share of the score given to word frequency, from 0 to 1; ignored for
+     *                        dictionaries without frequencies.
+     * @throws IllegalArgumentException if the threshold, a weight or the frequency weight is out of range.
+     */
+    public ScoringConfig(double threshold, Set<String> enabledAlgorithms, Map<String, Double> weights,
+                         double frequencyWeight) {
+        if (!(threshold >= 0 && threshold <= 1)) {
+            throw new IllegalArgumentException("Threshold must be between 0 and 1: " + threshold);
+        }
+        if (!(frequencyWeight >= 0 && frequencyWeight <= 1)) {
+            throw new IllegalArgumentException("Frequency weight must be between 0 and 1: " + frequencyWeight);
+        }
+        for (Map.Entry<String, Double> weight : weights.entrySet()) {
+            if (!(weight.getValue() >= 0) || weight.getValue().isInfinite()) {
+                throw new IllegalArgumentException("Invalid weight for " + weight.getKey() + ": " + weight.getValue());
+            }
+        }
+        this.threshold = threshold;
+        this.enabledAlgorithms = enabledAlgorithms != null
+                ? Collections.unmodifiableSet(new LinkedHashSet<>(enabledAlgorithms)) : null;
+        this.weights = Collections.unmodifiableMap(new HashMap<>(weights));
+        this.frequencyWeight = frequencyWeight;
+    }
+
+    /**
+     * Read a configuration from properties.
+     * @param properties the properties.
+     * @return the configuration.
+     * @throws IllegalArgumentException if a value is not a number or is out of range.
+     */
+    public static ScoringConfig fromProperties(Properties properties) {
+        double threshold = DEFAULT_THRESHOLD;
+        Set<String> enabledAlgorithms = null;
+        Map<String, Double> weights = new HashMap<>();
+        double frequencyWeight = DEFAULT_FREQUENCY_WEIGHT;
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key).trim();
+            if (key.equals(THRESHOLD_KEY)) {
+                threshold = parseNumber(key, value);
+            } else if (key.equals(ALGORITHMS_KEY)) {
+                enabledAlgorithms = new LinkedHashSet<>();
+                for (String name : value.split(",")) {
+                    if (!name.trim().isEmpty()) {
+                        enabledAlgorithms.add(name.trim());
+                    }
+                }
+            } else if (key.equals(FREQUENCY_WEIGHT_KEY)) {
+                frequencyWeight = parseNumber(key, value);
+            } else if (key.startsWith(WEIGHT_PREFIX)) {
+                weights.put(key.substring(WEIGHT_PREFIX.length()), parseNumber(key, value));
+            } else {
+                throw new IllegalArgumentException("Unknown scoring property: " + key);
+            }
+        }
+        return new ScoringConfig(threshold, enabledAlgorithms, weights, frequencyWeight);
+    }
+
+    /**
+     * Read a configuration from a UTF-8 properties file.
+     * @param file the file.
+     * @return the configuration.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if a value is not a number or is out of range.
+     */
+    public static ScoringConfig load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return fromProperties(properties);
+    }
+
+    private static double parseNumber(String key, String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + key + ": " + value);
+        }
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    // The names of the algorithms to run, or null if all of them run
+    public Set<String> getEnabledAlgorithms() {
+        return enabledAlgorithms;
+    }
+
+    // The weights overriding the declared weights of the algorithms, by name
+    public Map<String, Double> getWeights() {
+        return weights;
+    }
+
+    // The share of the score given to the frequency prior of a word, when the dictionary has frequencies
+    public double getFrequencyWeight() {
+        return frequencyWeight;
+    }
+
+    /**
+     * Check whether an algorithm runs under this configuration.
+     * @param algorithm the algorithm.
+     * @return true if it is enabled.
+     */
+    public boolean isEnabled(StringSimilarityAlgorithm algorithm) {
+        return enabledAlgorithms == null || enabledAlgorithms.contains(algorithm.getName());
+    }
+
+    /**
+     * Get the weight of an algorithm under this configuration.
+     * @param algorithm the algorithm.
+     * @return the configured weight, or the algorithm's declared weight if none is configured.
+     */
+    public double getWeight(StringSimilarityAlgorithm algorithm) {
+        Double weight = weights.get(algorithm.getName());
+        return weight != null ? weight : algorithm.getWeight();
+    }
+
+    @Override
+    public String toString() {
+        return "threshold=" + threshold + " algorithms=" + (enabledAlgorithms != null ? enabledAlgorithms : "all")
+                + " weights=" + weights + " frequencyWeight=" + frequencyWeight;
+    }
+}
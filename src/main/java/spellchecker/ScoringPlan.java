@@ -0,0 +1,136 @@
+package spellchecker;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The order, weights and threshold in which the similarity algorithms score a word, resolved from a
+ * {@link ScoringConfig} once rather than on every word. Enabled algorithms run cheapest first, so
+ * that a word that cannot make it into the suggestions is dropped before the costly ones run.
+ */
+final class ScoringPlan {
+
+    private final ScoringConfig config;
+    private final double threshold;
+    private final double frequencyWeight;
+    // steps[s] is the index of the algorithm run at step s
+    private final int[] steps;
+    // Weights by algorithm index; 0 for disabled algorithms
+    private final double[] weights;
+    // remainingWeights[s] is the total weight of the algorithms run from step s on
+    private final double[] remainingWeights;
+
+    private ScoringPlan(ScoringConfig config, int[] steps, double[] weights, double[] remainingWeights) {
+        this.config = config;
+        this.threshold = config.getThreshold();
+        this.frequencyWeight = config.getFrequencyWeight();
+        this.steps = steps;
+        this.weights = weights;
+        this.remainingWeights = remainingWeights;
+    }
+
+    /**
+     * Resolve a configuration against the algorithms of a spell checker.
+     * @param algorithms the algorithms, in their index order.
+     * @param config the configuration.
+     * @return the plan.
+     * @throws IllegalArgumentException if the configuration names an algorithm that does not exist.
+     */
+    static ScoringPlan of(List<StringSimilarityAlgorithm> algorithms, ScoringConfig config) {
+        Set<String> names = new LinkedHashSet<>();
+        for (StringSimilarityAlgorithm algorithm : algorithms) {
+            names.add(algorithm.getName());
+        }
+        Set<String> configured = new HashSet<>(config.getWeights().keySet());
+        if (config.getEnabledAlgorithms() != null) {
+            configured.addAll(config.getEnabledAlgorithms());
+        }
+        for (String name : configured) {
+            if (!names.contains(name)) {
+                throw new IllegalArgumentException("Unknown similarity algorithm: " + name + ", expected one of " + names);
+            }
+        }
+
+        double[] weights = new double[algorithms.size()];
+        List<Integer> enabled = new ArrayList<>();
+        for (int i = 0; i < algorithms.size(); i++) {
+            if (config.isEnabled(algorithms.get(i))) {
+                weights[i] = config.getWeight(algorithms.get(i));
+                // An algorithm without weight cannot change any score, so it is not run
+                if (weights[i] > 0) {
+                    enabled.add(i);
+                }
+            }
+        }
+        // Stable, so algorithms of equal cost keep their index order
+        enabled.sort(Comparator.comparingDouble(i -> algorithms.get(i).getCost()));
+
+        int[] steps = new int[enabled.size()];
+        double[] remainingWeights = new double[steps.length + 1];
+        for (int s = steps.length - 1; s >= 0; s--) {
+            steps[s] = enabled.get(s);
+            remainingWeights[s] = remainingWeights[s + 1] + weights[steps[s]];
+        }
+        return new ScoringPlan(config, steps, weights, remainingWeights);
+    }
+
+    ScoringConfig config() {
+        return config;
+    }
+
+    double threshold() {
+        return threshold;
+    }
+
+    double frequencyWeight() {
+        return frequencyWeight;
+    }
+
+    /**
+     * Get the number of algorithms to run.
+     * @return the number of steps.
+     */
+    int stepCount() {
+        return steps.length;
+    }
+
+    /**
+     * Get the algorithm run at a step.
+     * @param step the step, below {@link #stepCount()}.
+     * @return the index of the algorithm.
+     */
+    int algorithmAt(int step) {
+        return steps[step];
+    }
+
+    /**
+     * Get the weight of an algorithm.
+     * @param algorithm the index of the algorithm.
+     * @return its weight, or 0 if it is disabled.
+     */
+    double weight(int algorithm) {
+        return weights[algorithm];
+    }
+
+    /**
+     * Check whether an algorithm is run at all: it is enabled and has a weight above 0.
+     * @param algorithm the index of the algorithm.
+     * @return true if one of the steps runs it.
+     */
+    boolean runs(int algorithm) {
+        return weights[algorithm] > 0;
+    }
+
+    /**
+     * Get the total weight of the algorithms still to run.
+     * @param step the next step; may equal {@link #stepCount()}.
+     * @return the total weight of the steps from {@code step} on.
+     */
+    double remainingWeight(int step) {
+        return remainingWeights[step];
+    }
+}
@@ -0,0 +1,33 @@
+package spellchecker;
+
+/**
+ * Counters collected while scoring the candidates of one query on one thread, then merged across the
+ * partitions of the query. Only created when a {@link SpellCheckerListener} is attached.
+ */
+final class ScoringTrace {
+
+    final long[] algorithmNanos;
+    final int[] algorithmCalls;
+    // The number of words considered, added once per dictionary layer rather than per partition
+    int candidates;
+
+    /**
+     * Create empty counters.
+     * @param algorithmCount the number of similarity algorithms.
+     */
+    ScoringTrace(int algorithmCount) {
+        this.algorithmNanos = new long[algorithmCount];
+        this.algorithmCalls = new int[algorithmCount];
+    }
+
+    /**
+     * Add the counters of another partition to these.
+     * @param other the counters to add.
+     */
+    void addAll(ScoringTrace other) {
+        for (int i = 0; i < algorithmNanos.length; i++) {
+            algorithmNanos[i] += other.algorithmNanos[i];
+            algorithmCalls[i] += other.algorithmCalls[i];
+        }
+    }
+}
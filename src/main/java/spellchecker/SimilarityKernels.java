@@ -0,0 +1,342 @@
+package spellchecker;
+
+import java.util.Arrays;
+
+/**
+ * Similarity measures specialized for the scoring loop. They work on char arrays and reuse the
+ * buffers of a per-thread {@link Scratch}, so comparing the query with a dictionary word allocates
+ * nothing. Each kernel returns exactly what the library implementation it replaces returns.
+ */
+final class SimilarityKernels {
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    // Jaro-Winkler only boosts a common prefix of up to this many chars
+    private static final int MAX_WINKLER_PREFIX = 4;
+    // n-grams of up to this many chars are packed into an int exactly; longer ones are hashed
+    private static final int MAX_PACKED_NGRAM_SIZE = 2;
+
+    private SimilarityKernels() {
+    }
+
+    /**
+     * Get the scratch buffers of the current thread. Callers fetch it once and pass it along,
+     * rather than looking it up for every word.
+     * @return the scratch buffers.
+     */
+    static Scratch scratch() {
+        return SCRATCH.get();
+    }
+
+    /**
+     * Compute the optimal string alignment distance, the variant of the Damerau-Levenshtein distance
+     * in which every substring is edited at most once, keeping only the last three rows of the matrix.
+     * @param a the first word.
+     * @param aLength the number of chars of the first word.
+     * @param b the second word.
+     * @param bLength the number of chars of the second word.
+     * @param scratch the buffers of the current thread.
+     * @return the distance.
+     */
+    static int damerauLevenshtein(char[] a, int aLength, char[] b, int bLength, Scratch scratch) {
+        if (aLength == 0 || bLength == 0) {
+            return aLength + bLength;
+        }
+
+        int[] previousPrevious = scratch.rows(0, bLength + 1);
+        int[] previous = scratch.rows(1, bLength + 1);
+        int[] current = scratch.rows(2, bLength + 1);
+        for (int j = 0; j <= bLength; j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= aLength; i++) {
+            char c = a[i - 1];
+            current[0] = i;
+            for (int j = 1; j <= bLength; j++) {
+                int cost = c == b[j - 1] ? 0 : 1;
+                int distance = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && c == b[j - 2] && a[i - 2] == b[j - 1]) {
+                    distance = Math.min(distance, previousPrevious[j - 2] + cost);
+                }
+                current[j] = distance;
+            }
+
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[bLength];
+    }
+
+    /**
+     * Compute the optimal string alignment distance, giving up as soon as it is known to exceed a bound.
+     * Only the diagonal band of cells within {@code maxDistance} of the main diagonal is filled in, since
+     * no alignment leaving it can stay within the bound, and the computation stops once two consecutive
+     * rows lie entirely above the bound.
+     * @param a the first word.
+     * @param aLength the number of chars of the first word.
+     * @param b the second word.
+     * @param bLength the number of chars of the second word.
+     * @param maxDistance the largest distance of interest.
+     * @param scratch the buffers of the current thread.
+     * @return the distance if it is at most {@code maxDistance}, otherwise {@code maxDistance + 1}.
+     */
+    static int damerauLevenshtein(char[] a, int aLength, char[] b, int bLength, int maxDistance, Scratch scratch) {
+        // Every alignment needs at least as many edits as the difference in length
+        if (Math.abs(aLength - bLength) > maxDistance) {
+            return maxDistance + 1;
+        }
+        if (aLength == 0 || bLength == 0) {
+            return aLength + bLength;
+        }
+
+        // Stands in for every distance above the bound, including the cells outside the band
+        int exceeded = maxDistance + 1;
+        int[] previousPrevious = scratch.rows(0, bLength + 1);
+        int[] previous = scratch.rows(1, bLength + 1);
+        int[] current = scratch.rows(2, bLength + 1);
+        for (int j = 0; j <= bLength; j++) {
+            previous[j] = Math.min(j, exceeded);
+        }
+
+        int previousMinimum = 0;
+        for (int i = 1; i <= aLength; i++) {
+            char c = a[i - 1];
+            int from = Math.max(1, i - maxDistance);
+            int to = Math.min(bLength, i + maxDistance);
+            current[from - 1] = from == 1 ? Math.min(i, exceeded) : exceeded;
+            int minimum = current[from - 1];
+            for (int j = from; j <= to; j++) {
+                int cost = c == b[j - 1] ? 0 : 1;
+                int distance = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && c == b[j - 2] && a[i - 2] == b[j - 1]) {
+                    distance = Math.min(distance, previousPrevious[j - 2] + cost);
+                }
+                current[j] = Math.min(distance, exceeded);
+                minimum = Math.min(minimum, current[j]);
+            }
+            if (to < bLength) {
+                current[to + 1] = exceeded;
+            }
+            // A row can only improve on the row before it, or on the one before that through a transposition
+            if (minimum > maxDistance && previousMinimum > maxDistance) {
+                return exceeded;
+            }
+
+            previousMinimum = minimum;
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[bLength];
+    }
+
+    /**
+     * Compute the Jaro-Winkler similarity, with a scaling factor of 0.1 applied to a common prefix of
+     * up to four chars once the Jaro similarity reaches 0.7.
+     * @param a the first word.
+     * @param aLength the number of chars of the first word.
+     * @param b the second word.
+     * @param bLength the number of chars of the second word.
+     * @param scratch the buffers of the current thread.
+     * @return the similarity, from 0 to 1.
+     */
+    static double jaroWinkler(char[] a, int aLength, char[] b, int bLength, Scratch scratch) {
+        if (equals(a, aLength, b, bLength)) {
+            return 1.0;
+        }
+
+        // Match the chars of the shorter word against the longer one within the matching window
+        char[] min = a;
+        int minLength = aLength;
+        char[] max = b;
+        int maxLength = bLength;
+        if (aLength > bLength) {
+            min = b;
+            minLength = bLength;
+            max = a;
+            maxLength = aLength;
+        }
+        int range = Math.max(maxLength / 2 - 1, 0);
+        boolean[] minMatched = scratch.flags(0, minLength);
+        boolean[] maxMatched = scratch.flags(1, maxLength);
+
+        int matches = 0;
+        for (int i = 0; i < minLength; i++) {
+            char c = min[i];
+            for (int j = Math.max(i - range, 0), end = Math.min(i + range + 1, maxLength); j < end; j++) {
+                if (!maxMatched[j] && c == max[j]) {
+                    minMatched[i] = true;
+                    maxMatched[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0.0;
+        }
+
+        // Walk the matched chars of both words in order, counting the positions where they differ
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < minLength; i++) {
+            if (minMatched[i]) {
+                while (!maxMatched[j]) {
+                    j++;
+                }
+                if (min[i] != max[j]) {
+                    transpositions++;
+                }
+                j++;
+            }
+        }
+
+        int prefix = 0;
+        int prefixLimit = Math.min(MAX_WINKLER_PREFIX, minLength);
+        while (prefix < prefixLimit && a[prefix] == b[prefix]) {
+            prefix++;
+        }
+
+        double m = matches;
+        double jaro = (m / aLength + m / bLength + (m - transpositions / 2.0) / m) / 3;
+        return jaro < 0.7 ? jaro : jaro + 0.1 * prefix * (1.0 - jaro);
+    }
+
+    /**
+     * Write the distinct character n-grams of a word as sorted int keys, the keys {@link NGramIndex} stores.
+     * Two n-grams of up to two chars have the same key exactly when they are equal; longer ones are
+     * hashed, which still keeps n-grams of lowercase letters apart up to six chars.
+     * @param word the word.
+     * @param length the number of chars of the word.
+     * @param n the n-gram size.
+     * @param keys receives the keys; must hold at least {@code length - n + 1} elements.
+     * @return the number of distinct keys written.
+     */
+    static int nGramKeys(char[] word, int length, int n, int[] keys) {
+        int count = 0;
+        for (int i = 0; i <= length - n; i++) {
+            int key = 0;
+            for (int k = i; k < i + n; k++) {
+                key = n <= MAX_PACKED_NGRAM_SIZE ? key << 16 | word[k] : 31 * key + word[k];
+            }
+            keys[count++] = key;
+        }
+        Arrays.sort(keys, 0, count);
+
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || keys[i] != keys[distinct - 1]) {
+                keys[distinct++] = keys[i];
+            }
+        }
+        return distinct;
+    }
+
+    /**
+     * Compute the Jaccard similarity of two sets of n-gram keys with a merge of the sorted keys.
+     * @param a the sorted, distinct keys of the first word.
+     * @param aCount the number of keys of the first word.
+     * @param b the sorted, distinct keys of the second word.
+     * @param bCount the number of keys of the second word.
+     * @return the size of the intersection divided by the size of the union; NaN if both are empty.
+     */
+    static double jaccard(int[] a, int aCount, int[] b, int bCount) {
+        int shared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < aCount && j < bCount) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                shared++;
+                i++;
+                j++;
+            }
+        }
+        return (double) shared / (aCount + bCount - shared);
+    }
+
+    private static boolean equals(char[] a, int aLength, char[] b, int bLength) {
+        if (aLength != bLength) {
+            return false;
+        }
+        for (int i = 0; i < aLength; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Buffers reused by the kernels on one thread. They only ever grow, to the longest word seen.
+     */
+    static final class Scratch {
+        private final int[][] rows = new int[3][16];
+        private final boolean[][] flags = new boolean[2][16];
+        private char[] word = new char[16];
+        private int[] nGramKeys = new int[16];
+        private double[] similarities = new double[8];
+
+        private Scratch() {
+        }
+
+        /**
+         * Get a buffer large enough to hold a word.
+         * @param length the length of the word.
+         * @return the buffer; its contents are undefined.
+         */
+        char[] word(int length) {
+            if (word.length < length) {
+                word = new char[Math.max(length, 2 * word.length)];
+            }
+            return word;
+        }
+
+        /**
+         * Get a buffer large enough to hold the n-gram keys of a word.
+         * @param length the length of the word.
+         * @return the buffer; its contents are undefined.
+         */
+        int[] nGramKeys(int length) {
+            if (nGramKeys.length < length + 1) {
+                nGramKeys = new int[Math.max(length + 1, 2 * nGramKeys.length)];
+            }
+            return nGramKeys;
+        }
+
+        /**
+         * Get a buffer holding one similarity per algorithm.
+         * @param count the number of algorithms.
+         * @return the buffer; its contents are undefined.
+         */
+        double[] similarities(int count) {
+            if (similarities.length < count) {
+                similarities = new double[Math.max(count, 2 * similarities.length)];
+            }
+            return similarities;
+        }
+
+        private int[] rows(int row, int length) {
+            if (rows[row].length < length) {
+                rows[row] = new int[Math.max(length, 2 * rows[row].length)];
+            }
+            return rows[row];
+        }
+
+        // Cleared before they are handed out, since the matching relies on them starting out false
+        private boolean[] flags(int set, int length) {
+            if (flags[set].length < length) {
+                flags[set] = new boolean[Math.max(length, 2 * flags[set].length)];
+            } else {
+                Arrays.fill(flags[set], 0, length, false);
+            }
+            return flags[set];
+        }
+    }
+}
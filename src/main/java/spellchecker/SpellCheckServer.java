@@ -0,0 +1,308 @@
+package spellchecker;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A headless spell checking service on the JDK's built-in HTTP server, answering in JSON:
+ * <ul>
+ *     <li>{@code GET /check?word=speling&max=5} checks one word.</li>
+ *     <li>{@code POST /check} with {@code {"words": ["speling", "teh"], "max": 5}} checks a batch of words,
+ *     answering {@code {"results": [...]}} in the same order.</li>
+ *     <li>{@code GET /health} reports that the service is up and the size of its dictionary.</li>
+ * </ul>
+ * A result is {@code {"word": "speling", "correct": false, "suggestions": [{"word": "spelling", "score": 0.9}]}};
+ * correct words have no suggestions.
+ *
+ * <p>Requests are handled on virtual threads when the JVM has them, and on a fixed pool otherwise.
+ * Identical words checked concurrently, whether within a batch or across requests, share a single
+ * computation, so a burst of the same misspelling costs one suggestion run.</p>
+ */
+public final class SpellCheckServer {
+
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_MAX_SUGGESTIONS = 5;
+    private static final int MAX_SUGGESTIONS_LIMIT = SuggestionCache.MAX_BUCKET;
+    private static final int MAX_BATCH_WORDS = 10_000;
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    private static final int MAX_WORD_LENGTH = 256;
+
+    private final SpellChecker spellChecker;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final InFlightRequests<CheckKey, JsonObject> inFlight = new InFlightRequests<>();
+
+    /**
+     * Create a server; it does not accept connections until started.
+     * @param spellChecker the spell checker, with its dictionary loaded.
+     * @param address the address to listen on; port 0 picks a free port.
+     * @throws IOException if the address cannot be bound.
+     */
+    public SpellCheckServer(SpellChecker spellChecker, InetSocketAddress address) throws IOException {
+        this.spellChecker = Objects.requireNonNull(spellChecker);
+        this.server = HttpServer.create(address, 0);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/check", this::handleCheck);
+        server.createContext("/health", this::handleHealth);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop accepting requests and shut down the request threads.
+     * @param delaySeconds the time to wait for requests in progress to finish.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    // The port the server listens on, which is only known after binding when port 0 was asked for
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // One virtual thread per request on JDK 21 and later; the target is Java 11, so they are looked up reflectively
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threads = new AtomicInteger();
+            return Executors.newFixedThreadPool(Math.max(4, 2 * Runtime.getRuntime().availableProcessors()), task -> {
+                Thread thread = new Thread(task, "spellcheck-http-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void handleCheck(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestURI().getPath().equals("/check")) {
+                sendError(exchange, 404, "Not found");
+            } else if ("GET".equals(exchange.getRequestMethod())) {
+                Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+                String word = parameters.get("word");
+                if (word == null || word.trim().isEmpty()) {
+                    sendError(exchange, 400, "Missing word");
+                    return;
+                }
+                int max = parseMax(parameters.get("max"));
+                if (!isValidWord(word) || max < 0) {
+                    sendError(exchange, 400, "Invalid word or max");
+                    return;
+                }
+                sendJson(exchange, 200, check(word, max));
+            } else if ("POST".equals(exchange.getRequestMethod())) {
+                handleBatch(exchange);
+            } else {
+                exchange.getResponseHeaders().set("Allow", "GET, POST");
+                sendError(exchange, 405, "Method not allowed");
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            sendError(exchange, 500, "Internal error");
+        }
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        byte[] body = readBody(exchange.getRequestBody());
+        if (body == null) {
+            sendError(exchange, 413, "Request body larger than " + MAX_BODY_BYTES + " bytes");
+            return;
+        }
+
+        JsonArray words;
+        int max;
+        try {
+            JsonObject request = JsonParser.parseString(new String(body, StandardCharsets.UTF_8)).getAsJsonObject();
+            words = request.getAsJsonArray("words");
+            max = request.has("max") ? request.get("max").getAsInt() : DEFAULT_MAX_SUGGESTIONS;
+        } catch (JsonParseException | IllegalStateException | ClassCastException | NumberFormatException
+                 | UnsupportedOperationException e) {
+            sendError(exchange, 400, "Expected {\"words\": [...], \"max\": n}");
+            return;
+        }
+        if (words == null || words.size() > MAX_BATCH_WORDS || max < 0 || max > MAX_SUGGESTIONS_LIMIT) {
+            sendError(exchange, 400, "Expected up to " + MAX_BATCH_WORDS + " words and max between 0 and "
+                    + MAX_SUGGESTIONS_LIMIT);
+            return;
+        }
+
+        // Repeated words in the batch are checked once
+        Map<String, JsonObject> results = new LinkedHashMap<>();
+        JsonArray ordered = new JsonArray();
+        for (JsonElement element : words) {
+            String word = element.isJsonPrimitive() ? element.getAsString() : null;
+            if (word == null || word.trim().isEmpty() || !isValidWord(word)) {
+                sendError(exchange, 400, "Invalid word: " + element);
+                return;
+            }
+            ordered.add(results.computeIfAbsent(word, w -> check(w, max)));
+        }
+        JsonObject response = new JsonObject();
+        response.add("results", ordered);
+        sendJson(exchange, 200, response);
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        JsonObject response = new JsonObject();
+        response.addProperty("status", "ok");
+        response.addProperty("words", spellChecker.snapshot().layeredWordCount());
+        sendJson(exchange, 200, response);
+    }
+
+    // Check a word, sharing the computation with any concurrent check of the same word in any casing. The shared
+    // result holds no trace of the casing; each caller gets a copy with the word as it asked for it.
+    private JsonObject check(String word, int max) {
+        String trimmed = word.trim();
+        JsonObject shared = inFlight.get(new CheckKey(trimmed.toLowerCase(), max), () -> {
+            JsonObject result = new JsonObject();
+            boolean correct = spellChecker.checkWord(trimmed);
+            result.addProperty("correct", correct);
+            JsonArray suggestions = new JsonArray();
+            if (!correct) {
+                Suggestions ranked = spellChecker.suggest(trimmed, max);
+                for (int i = 0; i < ranked.size(); i++) {
+                    JsonObject suggestion = new JsonObject();
+                    suggestion.addProperty("word", ranked.getWord(i));
+                    suggestion.addProperty("score", ranked.getScore(i));
+                    suggestions.add(suggestion);
+                }
+            }
+            result.add("suggestions", suggestions);
+            return result;
+        });
+
+        JsonObject result = new JsonObject();
+        result.addProperty("word", trimmed);
+        for (Map.Entry<String, JsonElement> entry : shared.entrySet()) {
+            result.add(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    private static boolean isValidWord(String word) {
+        return word.length() <= MAX_WORD_LENGTH;
+    }
+
+    // The requested number of suggestions, DEFAULT_MAX_SUGGESTIONS if missing, or -1 if invalid
+    private static int parseMax(String value) {
+        if (value == null) {
+            return DEFAULT_MAX_SUGGESTIONS;
+        }
+        try {
+            int max = Integer.parseInt(value);
+            return max >= 0 && max <= MAX_SUGGESTIONS_LIMIT ? max : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals >= 0 ? pair.substring(0, equals) : pair;
+            String value = equals >= 0 ? pair.substring(equals + 1) : "";
+            try {
+                parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                // Malformed escape; leave the parameter out
+            }
+        }
+        return parameters;
+    }
+
+    // Read the whole body, or return null if it is larger than MAX_BODY_BYTES
+    private static byte[] readBody(InputStream body) throws IOException {
+        try (InputStream in = body) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            return bytes.length > MAX_BODY_BYTES ? null : bytes;
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        JsonObject error = new JsonObject();
+        error.addProperty("error", message);
+        sendJson(exchange, status, error);
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, JsonElement json) throws IOException {
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static final class CheckKey {
+        private final String word;
+        private final int max;
+
+        CheckKey(String word, int max) {
+            this.word = word;
+            this.max = max;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CheckKey)) {
+                return false;
+            }
+            CheckKey other = (CheckKey) o;
+            return max == other.max && word.equals(other.word);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * word.hashCode() + max;
+        }
+    }
+
+    /**
+     * Serve a dictionary on localhost until the process is stopped.
+     * Usage: {@code SpellCheckServer <dictionary.txt> [port]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: SpellCheckServer <dictionary.txt> [port]");
+            System.exit(1);
+        }
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+
+        SpellChecker spellChecker = new SpellChecker(2);
+        spellChecker.loadDictionary(args[0]);
+        SpellCheckServer server = new SpellCheckServer(spellChecker,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        server.start();
+        System.err.println("Listening on http://localhost:" + server.getPort() + "/check");
+    }
+}
@@ -1,178 +1,917 @@
 package spellchecker;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ForkJoinPool;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Stream;
 import org.apache.commons.text.similarity.JaroWinklerSimilarity;
 import org.apache.commons.codec.language.Metaphone;
 import org.apache.commons.codec.language.Soundex;
 import com.cedarsoftware.util.StringUtilities;
-import spellchecker.AVLTree;
 
-public class SpellChecker {
-    private AVLTree<String> dictionary;
+public class SpellChecker implements SuggestionProvider {
+    private static final int DEFAULT_MAX_EDIT_DISTANCE = 2;
+    private static final int NGRAM_CANDIDATES_PER_SUGGESTION = 8;
+    private static final int MIN_NGRAM_CANDIDATES = 32;
+    // Overlay words are scored on every query, so fold them into the indexes once there are this many changes
+    private static final int MAX_OVERLAY_SIZE = 256;
+    // Below this many words per partition, handing work to another thread costs more than it saves
+    private static final int MIN_PARTITION_SIZE = 256;
+    private static final long DEFAULT_SUGGESTION_CACHE_BYTES = 16L << 20;
+    private static final double SCORE_BOUND_SLACK = 1e-9;
+    // The dictionary watcher reloads once the file has had no events and kept its size and time for this long
+    private static final long WATCH_QUIET_MILLIS = 200;
+
+    // Replaced as a whole on every load or change; queries read it once and use that snapshot throughout
+    private volatile DictionarySnapshot snapshot;
+    // Serializes writers; readers never take it
+    private final Object writeLock = new Object();
+    private String dictionaryFilename;
+    private FileTime dictionaryModifiedTime;
+    // The dictionaries from DictionaryRegistry layered under this spell checker's own words, by absolute path;
+    // every published snapshot is layered over them
+    private final Map<String, DictionarySnapshot> sharedDictionaries = new LinkedHashMap<>();
     private final List<StringSimilarityAlgorithm> similarityAlgorithms;
+    // Replaced as a whole when the scoring configuration changes; queries read it once
+    private volatile ScoringPlan scoringPlan;
     private final int nGramSize;
-    private final Map<String, List<String>> nGramsMap;
-    protected List<String> path;
+    private final int maxEditDistance;
+    private final Executor scoringExecutor;
+    private final int scoringParallelism;
+    // Null when caching is disabled
+    private final SuggestionCache suggestionCache;
+    // Null unless metrics are collected; read once per operation
+    private volatile SpellCheckerListener listener;
 
     public SpellChecker(int initialNGramSize) {
-        dictionary = new AVLTree<>();
-        similarityAlgorithms = new ArrayList<>();
-        similarityAlgorithms.add(new DamerauLevenshteinAdapter());
-        similarityAlgorithms.add(new MetaphoneAlgorithm());
-        similarityAlgorithms.add(new SoundexAlgorithm());
-        similarityAlgorithms.add(new JaroWinklerAlgorithm());
-        nGramsMap = new HashMap<>();
+        this(initialNGramSize, DEFAULT_MAX_EDIT_DISTANCE);
+    }
+
+    // maxEditDistance bounds the candidates generated for suggestCorrections
+    public SpellChecker(int initialNGramSize, int maxEditDistance) {
+        this(initialNGramSize, maxEditDistance, ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism() + 1);
+    }
+
+    // Score large candidate sets in up to scoringParallelism partitions, all but one of them on scoringExecutor.
+    // The executor is shared by all queries and is never shut down by the spell checker.
+    public SpellChecker(int initialNGramSize, int maxEditDistance, Executor scoringExecutor, int scoringParallelism) {
+        this(initialNGramSize, maxEditDistance, scoringExecutor, scoringParallelism, DEFAULT_SUGGESTION_CACHE_BYTES);
+    }
+
+    // Keep recent suggestion lists in a cache taking up to about suggestionCacheBytes of heap; 0 disables it.
+    // The cache is emptied whenever the dictionary changes.
+    public SpellChecker(int initialNGramSize, int maxEditDistance, Executor scoringExecutor, int scoringParallelism,
+                        long suggestionCacheBytes) {
+        this.suggestionCache = suggestionCacheBytes > 0 ? new SuggestionCache(suggestionCacheBytes) : null;
+        this.scoringExecutor = Objects.requireNonNull(scoringExecutor);
+        this.scoringParallelism = Math.max(1, scoringParallelism);
+        similarityAlgorithms = defaultAlgorithms();
+        scoringPlan = ScoringPlan.of(similarityAlgorithms, ScoringConfig.DEFAULT);
         nGramSize = initialNGramSize;
-        path = new ArrayList<>();
+        this.maxEditDistance = maxEditDistance;
+        publish(DictionarySnapshot.build(Collections.emptyList(), null, nGramSize, maxEditDistance, similarityAlgorithms));
+    }
+
+    // The built-in similarity algorithms, in the order every spell checker holds them
+    static List<StringSimilarityAlgorithm> defaultAlgorithms() {
+        List<StringSimilarityAlgorithm> algorithms = new ArrayList<>();
+        algorithms.add(new DamerauLevenshteinAdapter());
+        algorithms.add(new MetaphoneAlgorithm());
+        algorithms.add(new SoundexAlgorithm());
+        algorithms.add(new JaroWinklerAlgorithm());
+        return algorithms;
     }
 
-    // Load the dictionary from a file
+    // Load the dictionary from a file, using a prebuilt image next to it (dictionary.txt.img) when one is up to date
     public void loadDictionary(String dictionaryFilename) {
-        dictionary = new AVLTree<>();
+        synchronized (writeLock) {
+            long startTime = System.nanoTime();
+            Path text = Paths.get(dictionaryFilename);
+            this.dictionaryFilename = dictionaryFilename;
+            this.dictionaryModifiedTime = lastModifiedTime(text);
+
+            DictionarySnapshot image = readImage(dictionaryFilename, nGramSize, maxEditDistance, similarityAlgorithms,
+                    listener);
+            boolean fromImage = image != null;
+            if (fromImage) {
+                publish(image);
+            } else {
+                loadTextDictionary(dictionaryFilename);
+            }
+
+            SpellCheckerListener currentListener = listener;
+            if (currentListener != null) {
+                currentListener.dictionaryLoaded(System.nanoTime() - startTime, snapshot.liveWordCount(), fromImage);
+            }
+        }
+    }
+
+    private static FileTime lastModifiedTime(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static boolean isImageUpToDate(Path text, Path image) {
+        try {
+            // An image whose text dictionary is gone has nothing to be up to date with
+            return Files.isRegularFile(image) && Files.exists(text)
+                    && Files.getLastModifiedTime(image).compareTo(Files.getLastModifiedTime(text)) >= 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Map the prebuilt image of a dictionary, or return null if there is none up to date with the text file. An image
+    // that cannot be read is reported to listener, if not null, and otherwise ignored.
+    private static DictionarySnapshot readImage(String dictionaryFilename, int nGramSize, int maxEditDistance,
+                                                List<StringSimilarityAlgorithm> algorithms,
+                                                SpellCheckerListener listener) {
+        Path image = Paths.get(dictionaryFilename + DictionaryImage.EXTENSION);
+        if (isImageUpToDate(Paths.get(dictionaryFilename), image)) {
+            try {
+                return DictionaryImage.read(image, nGramSize, maxEditDistance, algorithms);
+            } catch (IOException e) {
+                if (listener != null) {
+                    listener.dictionaryImageRejected(image.toString(), e);
+                }
+            }
+        }
+        return null;
+    }
+
+    // Parse a text dictionary, one word per line, and build all indexes from it
+    void loadTextDictionary(String dictionaryFilename) {
+        try {
+            publish(readTextDictionary(dictionaryFilename, nGramSize, maxEditDistance, similarityAlgorithms));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    static DictionarySnapshot readTextDictionary(String dictionaryFilename, int nGramSize, int maxEditDistance,
+                                                         List<StringSimilarityAlgorithm> algorithms) throws IOException {
+        Map<String, Long> frequencies = new HashMap<>();
+        Set<String> loadedWords = readWords(dictionaryFilename, frequencies);
+        return DictionarySnapshot.build(loadedWords, frequencies.isEmpty() ? null : frequencies, nGramSize,
+                maxEditDistance, algorithms);
+    }
+
+    // Read a dictionary the way loadDictionary does, from its image if it is up to date, without publishing it
+    static DictionarySnapshot readDictionary(String dictionaryFilename, int nGramSize, int maxEditDistance,
+                                             List<StringSimilarityAlgorithm> algorithms) throws IOException {
+        DictionarySnapshot image = readImage(dictionaryFilename, nGramSize, maxEditDistance, algorithms, null);
+        return image != null ? image : readTextDictionary(dictionaryFilename, nGramSize, maxEditDistance, algorithms);
+    }
+
+    // Read the lowercased words of a text dictionary. A line may end with the frequency of its word, separated
+    // by whitespace; the frequencies are added to frequencies, if not null, summing those of repeated words.
+    private static Set<String> readWords(String dictionaryFilename, Map<String, Long> frequencies) throws IOException {
+        Set<String> loadedWords = new LinkedHashSet<>();
         try (BufferedReader reader = new BufferedReader(new FileReader(dictionaryFilename))) {
             String line;
             while ((line = reader.readLine()) != null) {
                 line = line.trim().toLowerCase();
-                List<String> nGrams = generateCharacterNGrams(line, nGramSize);
-                nGramsMap.put(line, nGrams);
-                dictionary.insert(line);
+                int digits = line.length();
+                while (digits > 0 && line.charAt(digits - 1) >= '0' && line.charAt(digits - 1) <= '9') {
+                    digits--;
+                }
+                if (digits > 0 && digits < line.length() && Character.isWhitespace(line.charAt(digits - 1))) {
+                    long frequency = parseFrequency(line.substring(digits));
+                    line = line.substring(0, digits).trim();
+                    if (frequencies != null) {
+                        frequencies.merge(line, frequency, SpellChecker::saturatedAdd);
+                    }
+                }
+                loadedWords.add(line);
+            }
+        }
+        return loadedWords;
+    }
+
+    private static long parseFrequency(String digits) {
+        try {
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE; // Too many digits
+        }
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    // Layer a dictionary under this spell checker's own words: checkWord finds the words of either, and suggestions
+    // come from both. The dictionary is loaded once per JVM, from its image if one is up to date, and shared with
+    // every spell checker of the same n-gram size and maximum edit distance that adds it, so many spell checkers can
+    // each keep a small word list of their own (loadDictionary, addWord) over one large dictionary without copying
+    // it. Shared dictionaries are searched in the order they were added and are not changed by addWord, removeWord
+    // or reloadDictionary; adding one again picks up a newer version of its file.
+    public void addSharedDictionary(String dictionaryFilename) throws IOException {
+        Path file = Paths.get(dictionaryFilename).toAbsolutePath().normalize();
+        DictionarySnapshot layer = DictionaryRegistry.shared().get(file, nGramSize, maxEditDistance,
+                similarityAlgorithms);
+        synchronized (writeLock) {
+            sharedDictionaries.put(file.toString(), layer);
+            publish(snapshot);
+        }
+    }
+
+    // Stop using a dictionary added with addSharedDictionary. Returns false if it was not added. The dictionary is
+    // freed once no spell checker uses it.
+    public boolean removeSharedDictionary(String dictionaryFilename) {
+        synchronized (writeLock) {
+            if (sharedDictionaries.remove(Paths.get(dictionaryFilename).toAbsolutePath().normalize().toString()) == null) {
+                return false;
+            }
+            publish(snapshot);
+            return true;
+        }
+    }
+
+    // The absolute paths of the shared dictionaries, in the order they are searched
+    public List<String> getSharedDictionaries() {
+        synchronized (writeLock) {
+            return new ArrayList<>(sharedDictionaries.keySet());
+        }
+    }
+
+    // Add a word to the dictionary without rebuilding it
+    public void addWord(String word) {
+        applyChanges(Collections.singletonList(word.trim().toLowerCase()), Collections.emptyList());
+    }
+
+    // Remove a word from the dictionary without rebuilding it
+    public void removeWord(String word) {
+        applyChanges(Collections.emptyList(), Collections.singletonList(word.trim().toLowerCase()));
+    }
+
+    // Re-read the dictionary file if it changed since it was loaded and apply only the difference. Word frequencies
+    // are only held for indexed words, so a change to any frequency rebuilds the dictionary from the file instead.
+    // Returns true if anything changed; if the file cannot be read, the dictionary is left as it was.
+    public boolean reloadDictionary() throws IOException {
+        synchronized (writeLock) {
+            if (dictionaryFilename == null) {
+                return false;
+            }
+            FileTime modifiedTime = lastModifiedTime(Paths.get(dictionaryFilename));
+            if (modifiedTime == null || modifiedTime.equals(dictionaryModifiedTime)) {
+                return false;
+            }
+
+            Map<String, Long> fileFrequencies = new HashMap<>();
+            Set<String> fileWords = readWords(dictionaryFilename, fileFrequencies);
+            dictionaryModifiedTime = modifiedTime;
+
+            if (!FrequencyTable.sameCounts(fileFrequencies, snapshot.frequencyMap())) {
+                publish(DictionarySnapshot.build(fileWords, fileFrequencies.isEmpty() ? null : fileFrequencies,
+                        nGramSize, maxEditDistance, similarityAlgorithms));
+                return true;
+            }
+
+            List<String> liveWords = snapshot.liveWords();
+            List<String> removals = new ArrayList<>();
+            for (String word : liveWords) {
+                if (!fileWords.remove(word)) {
+                    removals.add(word);
+                }
+            }
+            // Whatever is left in fileWords was not in the dictionary yet
+            applyChanges(fileWords, removals);
+            return !fileWords.isEmpty() || !removals.isEmpty();
+        }
+    }
+
+    // Watch the loaded dictionary file and apply its changes as they happen, until the returned handle is closed.
+    // A change is applied once the file has been left alone for a moment, so a file still being written is not
+    // read half way. Reloads that fail are reported to the listener and the file is watched on.
+    public Closeable watchDictionary() throws IOException {
+        Path file;
+        synchronized (writeLock) {
+            if (dictionaryFilename == null) {
+                throw new IllegalStateException("No dictionary has been loaded");
+            }
+            file = Paths.get(dictionaryFilename).toAbsolutePath();
+        }
+
+        WatchService watchService = file.getFileSystem().newWatchService();
+        file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    boolean changed = concerns(watchService.take(), file);
+                    while (changed) {
+                        String version = fileVersion(file);
+                        WatchKey next = watchService.poll(WATCH_QUIET_MILLIS, TimeUnit.MILLISECONDS);
+                        if (next != null) {
+                            concerns(next, file);
+                        } else if (Objects.equals(version, fileVersion(file))) {
+                            reloadWatched(file);
+                            changed = false;
+                        }
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // Closed by the caller
             }
+        }, "dictionary-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        return watchService;
+    }
+
+    // Take the events of a watch key and tell if any of them is about the file
+    private static boolean concerns(WatchKey key, Path file) {
+        boolean concerned = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            concerned |= file.getFileName().equals(event.context());
+        }
+        key.reset();
+        return concerned;
+    }
+
+    // The size and modification time of a file, or null if they cannot be read
+    private static String fileVersion(Path file) {
+        try {
+            return Files.size(file) + "@" + Files.getLastModifiedTime(file);
         } catch (IOException e) {
-            e.printStackTrace();
+            return null;
         }
     }
 
+    private void reloadWatched(Path file) {
+        try {
+            reloadDictionary();
+        } catch (IOException | RuntimeException e) {
+            SpellCheckerListener currentListener = listener;
+            if (currentListener != null) {
+                currentListener.dictionaryReloadFailed(file.toString(), e);
+            }
+        }
+    }
+
+    // Publish a snapshot with the changes in its overlay, folding the overlay into the indexes once it grows too large
+    private void applyChanges(Collection<String> additions, Collection<String> removals) {
+        synchronized (writeLock) {
+            DictionarySnapshot next = snapshot.withChanges(additions, removals);
+            if (next.overlaySize() > MAX_OVERLAY_SIZE) {
+                next = DictionarySnapshot.build(next.liveWords(), next.frequencyMap(), nGramSize, maxEditDistance,
+                        similarityAlgorithms);
+            }
+            publish(next);
+        }
+    }
+
+    // Replace the snapshot, layered over the shared dictionaries; suggestions computed from the previous one are
+    // no longer valid
+    private void publish(DictionarySnapshot next) {
+        snapshot = next.withSharedLayers(sharedDictionaries.values().toArray(new DictionarySnapshot[0]));
+        if (suggestionCache != null) {
+            suggestionCache.clear();
+        }
+    }
+
+    DictionarySnapshot snapshot() {
+        return snapshot;
+    }
+
+    List<StringSimilarityAlgorithm> similarityAlgorithms() {
+        return similarityAlgorithms;
+    }
+
+    // The similarity algorithms suggestions are scored with, in the order a PreparedQuery from prepare encodes them
+    public List<StringSimilarityAlgorithm> getSimilarityAlgorithms() {
+        return Collections.unmodifiableList(similarityAlgorithms);
+    }
+
     // Check if a word is in the dictionary
     public boolean checkWord(String word) {
-        // Reset the path for each new word check
-        path.clear();
-        return searchWord(dictionary.getRoot(), word.toLowerCase());
+        return checkWord(word, null);
     }
 
-    // Recursive method to search for a word in the dictionary
-    private boolean searchWord(AVLTree<String>.Node node, String word) {
-        if (node == null) {
-            return false;
+    // Check if a word is in the dictionary, appending every word visited by the search to path (if not null)
+    public boolean checkWord(String word, List<String> path) {
+        return contains(snapshot, word.toLowerCase(), path);
+    }
+
+    // Look up a lowercased word in a snapshot read before and report it to the listener as checkWord does, so that
+    // a batch of words can be checked against one snapshot
+    boolean contains(DictionarySnapshot current, String word, List<String> path) {
+        SpellCheckerListener currentListener = listener;
+        if (currentListener == null) {
+            return current.contains(word, path);
         }
+        long startTime = System.nanoTime();
+        boolean found = current.contains(word, path);
+        currentListener.lookupCompleted(System.nanoTime() - startTime, found);
+        return found;
+    }
 
-        String dictWord = node.data;
-        path.add(dictWord); // Add the current node to the search path
+    // Check every word of a document, returning the misspelled ones with up to maxSuggestions corrections each.
+    // The document is read lazily in batches as the stream is consumed, so it may be of any size.
+    // Reading errors surface as UncheckedIOException; the reader is not closed.
+    public Stream<Misspelling> checkDocument(Reader document, long maxSuggestions) {
+        return new DocumentChecker(this, document, maxSuggestions).stream();
+    }
 
-        int cmp = word.compareTo(dictWord);
+    // Same as checkDocument, for a UTF-8 encoded document
+    public Stream<Misspelling> checkStream(InputStream document, long maxSuggestions) {
+        return checkDocument(new InputStreamReader(document, StandardCharsets.UTF_8), maxSuggestions);
+    }
 
-        if (cmp < 0) {
-            return searchWord(node.left, word);
-        } else if (cmp > 0) {
-            return searchWord(node.right, word);
+    // Suggest corrections for a misspelled word. Only words within maxEditDistance, with a high n-gram overlap or
+    // sharing a phonetic code are scored, so fewer than maxSuggestions may be returned even where a full scan of the
+    // dictionary would have found more.
+    public List<Map.Entry<String, Double>> suggestCorrections(String word, long maxSuggestions) {
+        return suggest(word, (int) Math.max(0, Math.min(Integer.MAX_VALUE, maxSuggestions))).toList();
+    }
+
+    // Suggest corrections for a misspelled word, as a compact list of words and primitive scores
+    @Override
+    public Suggestions suggest(String word, int maxSuggestions) {
+        SpellCheckerListener currentListener = listener;
+        long startTime = currentListener != null ? System.nanoTime() : 0;
+        ScoringTrace trace = currentListener != null ? new ScoringTrace(similarityAlgorithms.size()) : null;
+        DictionarySnapshot current = snapshot;
+        ScoringPlan plan = scoringPlan;
+        String query = word.toLowerCase();
+        int limit = Math.max(0, maxSuggestions);
+        int bucket = SuggestionCache.bucket(limit);
+
+        Suggestions suggestions;
+        boolean cached = false;
+        if (bucket < 0 || suggestionCache == null) {
+            suggestions = computeSuggestions(current, plan, query, limit, trace);
         } else {
-            return true;
+            // Always compute the whole bucket and take its prefix, so the result is the same whether or not
+            // it comes from the cache
+            Suggestions bucketSuggestions = suggestionCache.get(query, bucket, current, plan);
+            cached = bucketSuggestions != null;
+            if (!cached) {
+                bucketSuggestions = computeSuggestions(current, plan, query, bucket, trace);
+                suggestionCache.put(query, bucket, current, plan, bucketSuggestions);
+            }
+            suggestions = bucketSuggestions.prefix(limit);
+        }
+
+        if (currentListener != null) {
+            report(currentListener, System.nanoTime() - startTime, trace, suggestions, cached);
         }
+        return suggestions;
     }
 
-    // Suggest corrections for a misspelled word
-    public List<Map.Entry<String, Double>> suggestCorrections(String word, long maxSuggestions) {
-        Map<String, Double> suggestions = new ConcurrentHashMap<>();
+    // Get every word within maxDistance edits of a word, in alphabetical order, counting an adjacent transposition
+    // as one edit. The words are found in one walk of a dictionary trie, for any distance and independently of
+    // the maxEditDistance given to the constructor; they are not scored.
+    public List<String> wordsWithinDistance(String word, int maxDistance) {
+        DictionarySnapshot current = snapshot;
+        String query = word.toLowerCase();
+        List<String> words = new ArrayList<>();
+        addWords(current, withinDistance(current, query, maxDistance), words);
+        for (DictionarySnapshot layer : current.sharedLayers()) {
+            addWords(layer, withinDistance(layer, query, maxDistance), words);
+        }
+        // Overlay ids follow the base ids, and every layer has its own run, so the runs are merged by sorting
+        Collections.sort(words);
+        int distinct = 0;
+        for (int i = 0; i < words.size(); i++) {
+            if (i == 0 || !words.get(i).equals(words.get(distinct - 1))) {
+                words.set(distinct++, words.get(i));
+            }
+        }
+        return words.subList(0, distinct);
+    }
 
-        ForkJoinPool pool = new ForkJoinPool();
-        pool.submit(() ->
-                traverseDictionaryInOrder(dictionary.getRoot(), word, suggestions)
-        ).join();
+    private static void addWords(DictionarySnapshot current, int[] ids, List<String> words) {
+        for (int id : ids) {
+            words.add(current.word(id));
+        }
+    }
+
+    // Suggest corrections for a misspelled word among the words within maxDistance edits of it only, ranked by the
+    // same weighted scoring as suggest. Results are not cached.
+    public Suggestions suggestWithinDistance(String word, int maxDistance, int maxSuggestions) {
+        SpellCheckerListener currentListener = listener;
+        long startTime = currentListener != null ? System.nanoTime() : 0;
+        ScoringTrace trace = currentListener != null ? new ScoringTrace(similarityAlgorithms.size()) : null;
+        DictionarySnapshot current = snapshot;
+        ScoringPlan plan = scoringPlan;
+        PreparedQuery query = new PreparedQuery(word.toLowerCase(), nGramSize, plan, similarityAlgorithms);
+        int limit = Math.max(0, maxSuggestions);
+        Suggestions suggestions = suggestWithinDistance(current, plan, query, maxDistance, limit, trace);
+        for (DictionarySnapshot layer : current.sharedLayers()) {
+            suggestions = merge(suggestions, suggestWithinDistance(layer, plan, query, maxDistance, limit, trace), limit);
+        }
 
-        return suggestions.entrySet().stream()
-                .sorted((entry1, entry2) -> Double.compare(entry2.getValue(), entry1.getValue()))
-                .limit(maxSuggestions) // Limit to a certain number of suggestions
-                .collect(Collectors.toList());
+        if (currentListener != null) {
+            report(currentListener, System.nanoTime() - startTime, trace, suggestions, false);
+        }
+        return suggestions;
     }
 
-    // Clear the path
-    public void clearPath() {
-        path.clear();
+    private Suggestions suggestWithinDistance(DictionarySnapshot current, ScoringPlan plan, PreparedQuery query,
+                                              int maxDistance, int limit, ScoringTrace trace) {
+        int[] candidates = withinDistance(current, query.getText(), maxDistance);
+        boolean byFrequency = sortByFrequency(current, candidates);
+        return toSuggestions(current, rank(current, plan, candidates.length, i -> candidates[i], byFrequency, query,
+                encodeQueryKeys(current, plan, query), limit, trace));
     }
 
-    // Get the search path
-    public List<String> path() {
-        return path;
+    // Prepare a word for comparison with dictionary words through StringSimilarityAlgorithm.calculateSimilarity(
+    // PreparedQuery, PreparedEntry), with the n-gram size, algorithms and threshold of this spell checker
+    public PreparedQuery prepare(String word) {
+        return new PreparedQuery(word.toLowerCase(), nGramSize, scoringPlan, similarityAlgorithms);
     }
 
-    // Traverse the dictionary in order and calculate word similarities
-    private void traverseDictionaryInOrder(AVLTree<String>.Node node, String word, Map<String, Double> suggestions) {
-        if (node != null) {
-            String dictWord = node.data;
+    // Change the similarity threshold, which algorithms run and their weights, for all queries starting from now.
+    // Throws IllegalArgumentException if the configuration names an algorithm this spell checker does not have.
+    public void setScoringConfig(ScoringConfig config) {
+        synchronized (writeLock) {
+            scoringPlan = ScoringPlan.of(similarityAlgorithms, config);
+            if (suggestionCache != null) {
+                suggestionCache.clear();
+            }
+        }
+    }
 
-            double totalWeightedScore = 0.0;
-            double totalWeight = 0.0;
+    public ScoringConfig getScoringConfig() {
+        return scoringPlan.config();
+    }
 
-            for (StringSimilarityAlgorithm algorithm : similarityAlgorithms) {
-                double similarity = algorithm.calculateSimilarity(word.toLowerCase(), dictWord);
+    // Attach a listener that is told about loads, lookups and suggestion requests, replacing any attached before.
+    // SpellCheckerMetrics is one that aggregates them and exposes them over JMX.
+    public void setListener(SpellCheckerListener listener) {
+        // Under the same lock as removeListener, so that it cannot detach a listener attached in between
+        synchronized (writeLock) {
+            this.listener = listener;
+        }
+    }
 
-                double similarityThreshold = 0.7;
-                if (similarity >= similarityThreshold) {
-                    double weight = getWeightForAlgorithm(algorithm);
-                    totalWeightedScore += similarity * (weight);
-                    totalWeight += weight;
-                }
+    // Detach a listener, if it is the one attached
+    public void removeListener(SpellCheckerListener listener) {
+        synchronized (writeLock) {
+            if (this.listener == listener) {
+                this.listener = null;
             }
+        }
+    }
 
-            if (totalWeight > 0) {
-                double normalizedScore = totalWeightedScore / totalWeight;
-                normalizedScore = Math.min(normalizedScore, 1.0); // Clamp the score to max 1.0
+    private void report(SpellCheckerListener currentListener, long nanos, ScoringTrace trace, Suggestions suggestions,
+                        boolean cached) {
+        if (!cached) {
+            for (int i = 0; i < similarityAlgorithms.size(); i++) {
+                currentListener.algorithmTimed(similarityAlgorithms.get(i), trace.algorithmNanos[i],
+                        trace.algorithmCalls[i]);
+            }
+        }
+        currentListener.suggestionCompleted(nanos, cached ? 0 : trace.candidates, suggestions.size(), cached);
+    }
 
-                List<String> nGrams = nGramsMap.get(dictWord.toLowerCase());
-                double nGramSimilarity = calculateNGramSimilarity(word.toLowerCase(), nGrams);
-                normalizedScore = (normalizedScore + nGramSimilarity) / 2.0; // Combine with nGram similarity
+    // Get the hit, miss and eviction counts of the suggestion cache, or null if caching is disabled
+    public CacheStats getCacheStats() {
+        return suggestionCache != null ? suggestionCache.stats() : null;
+    }
 
-                suggestions.put(dictWord, Math.max(suggestions.getOrDefault(dictWord, 0.0), normalizedScore));
+    // trace, if not null, receives the number of candidates and the time spent in each algorithm
+    private Suggestions computeSuggestions(DictionarySnapshot current, ScoringPlan plan, String word, int limit,
+                                           ScoringTrace trace) {
+        PreparedQuery query = new PreparedQuery(word, nGramSize, plan, similarityAlgorithms);
+        // Every layer is ranked on its own indexes with the same prepared query, and the lists are merged
+        Suggestions suggestions = computeLayerSuggestions(current, plan, query, limit, trace);
+        for (DictionarySnapshot layer : current.sharedLayers()) {
+            suggestions = merge(suggestions, computeLayerSuggestions(layer, plan, query, limit, trace), limit);
+        }
+        return suggestions;
+    }
+
+    private Suggestions computeLayerSuggestions(DictionarySnapshot current, ScoringPlan plan, PreparedQuery query,
+                                                int limit, ScoringTrace trace) {
+        // Only words within maxEditDistance, with a high n-gram overlap or sharing a phonetic key of an algorithm the
+        // plan runs are scored; fall back to the full scan when there are none
+        int[] queryKeys = encodeQueryKeys(current, plan, query);
+        int nGramCandidates = (int) Math.min(Integer.MAX_VALUE,
+                Math.max(MIN_NGRAM_CANDIDATES, (long) limit * NGRAM_CANDIDATES_PER_SUGGESTION));
+        int[] candidates = union(current.deletionIndex().lookup(query.getText()),
+                current.nGramIndex().topKByJaccard(query.nGramKeys(), query.nGramCount(), nGramCandidates));
+        PhoneticIndex[] phoneticIndexes = current.phoneticIndexes();
+        for (int i = 0; i < phoneticIndexes.length; i++) {
+            if (phoneticIndexes[i] != null && plan.runs(i)) {
+                candidates = union(candidates, phoneticIndexes[i].bucket(queryKeys[i]));
             }
+        }
 
-            traverseDictionaryInOrder(node.left, word, suggestions);
-            traverseDictionaryInOrder(node.right, word, suggestions);
+        TopK best;
+        if (candidates.length > 0) {
+            // Words added since loading are not indexed, so they are always scored
+            int indexed = candidates.length;
+            int[] allCandidates = Arrays.copyOf(candidates, indexed + current.wordCount() - current.firstAddedId());
+            for (int i = indexed; i < allCandidates.length; i++) {
+                allCandidates[i] = current.firstAddedId() + i - indexed;
+            }
+            boolean byFrequency = sortByFrequency(current, allCandidates);
+            best = rank(current, plan, allCandidates.length, i -> allCandidates[i], byFrequency, query, queryKeys,
+                    limit, trace);
+        } else {
+            best = rank(current, plan, current.wordCount(), i -> i, false, query, queryKeys, limit, trace);
         }
+
+        return toSuggestions(current, best);
     }
 
+    private static Suggestions toSuggestions(DictionarySnapshot current, TopK best) {
+        int[] ids = new int[best.size()];
+        double[] scores = new double[best.size()];
+        best.drainDescending(ids, scores);
+        String[] words = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            words[i] = current.word(ids[i]);
+        }
+        return new Suggestions(words, scores);
+    }
 
-    private double getWeightForAlgorithm(StringSimilarityAlgorithm algorithm) {
-        if (algorithm instanceof DamerauLevenshteinAdapter) {
-            return 0.9;
-        } else if (algorithm instanceof MetaphoneAlgorithm) {
-            return 0.7;
-        } else if (algorithm instanceof SoundexAlgorithm) {
-            return 0.6;
-        } else if (algorithm instanceof JaroWinklerAlgorithm) {
-            return 0.9;
-        } else {
-            return 1.0; // Default weight
+    // Merge the suggestions of two layers into the best limit of them. On equal scores those of the first list come
+    // first, and a word suggested by both keeps only its higher score.
+    private static Suggestions merge(Suggestions first, Suggestions second, int limit) {
+        if (second.size() == 0) {
+            return first;
+        }
+        String[] words = new String[Math.min(limit, first.size() + second.size())];
+        double[] scores = new double[words.length];
+        Set<String> seen = new HashSet<>();
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (count < words.length && (i < first.size() || j < second.size())) {
+            boolean fromFirst = j == second.size() || (i < first.size() && first.getScore(i) >= second.getScore(j));
+            String word = fromFirst ? first.getWord(i) : second.getWord(j);
+            double score = fromFirst ? first.getScore(i++) : second.getScore(j++);
+            if (seen.add(word)) {
+                words[count] = word;
+                scores[count++] = score;
+            }
         }
+        return new Suggestions(Arrays.copyOf(words, count), Arrays.copyOf(scores, count));
     }
 
-    // Calculate n-gram similarity between two words
-    private double calculateNGramSimilarity(String word, List<String> dictionaryNGrams) {
-        List<String> wordNGrams = generateCharacterNGrams(word, this.nGramSize);
+    // Get the ids of the live words within maxDistance edits of the query, in ascending order
+    private static int[] withinDistance(DictionarySnapshot current, String query, int maxDistance) {
+        int[] indexed = current.trieIndex().lookup(query, maxDistance);
+        int[] ids = new int[indexed.length + current.wordCount() - current.firstAddedId()];
+        int count = 0;
+        for (int id : indexed) {
+            if (!current.isRemoved(id)) {
+                ids[count++] = id;
+            }
+        }
+
+        // Words added since loading are not in the trie, so they are measured one by one
+        if (maxDistance >= 0) {
+            char[] queryChars = query.toCharArray();
+            SimilarityKernels.Scratch scratch = SimilarityKernels.scratch();
+            for (int id = current.firstAddedId(); id < current.wordCount(); id++) {
+                int length = current.length(id);
+                char[] word = scratch.word(length);
+                current.copyChars(id, word);
+                if (!current.isRemoved(id) && SimilarityKernels.damerauLevenshtein(queryChars, queryChars.length, word,
+                        length, maxDistance, scratch) <= maxDistance) {
+                    ids[count++] = id;
+                }
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    // Score the word ids idAt(0 .. count - 1) in balanced partitions, each keeping its own top-K, and merge them.
+    // byFrequency tells that the ids come in descending order of frequency, so a partition may stop early.
+    private TopK rank(DictionarySnapshot current, ScoringPlan plan, int count, IntUnaryOperator idAt,
+                      boolean byFrequency, PreparedQuery query, int[] queryKeys, int limit, ScoringTrace trace) {
+        int partitions = (int) Math.min(scoringParallelism, Math.max(1, (long) count / MIN_PARTITION_SIZE));
+        if (trace != null) {
+            trace.candidates += count;
+        }
+
+        // Each partition counts into its own trace, merged once it is done
+        List<CompletableFuture<TopK>> others = new ArrayList<>(partitions - 1);
+        ScoringTrace[] otherTraces = new ScoringTrace[partitions - 1];
+        for (int p = 1; p < partitions; p++) {
+            int from = (int) ((long) count * p / partitions);
+            int to = (int) ((long) count * (p + 1) / partitions);
+            ScoringTrace partitionTrace = trace != null ? new ScoringTrace(similarityAlgorithms.size()) : null;
+            otherTraces[p - 1] = partitionTrace;
+            others.add(CompletableFuture.supplyAsync(
+                    () -> rankPartition(current, plan, from, to, idAt, byFrequency, query, queryKeys, limit,
+                            partitionTrace),
+                    scoringExecutor));
+        }
+
+        // The calling thread takes the first partition itself rather than waiting idle
+        TopK best = rankPartition(current, plan, 0, (int) ((long) count / partitions), idAt, byFrequency, query,
+                queryKeys, limit, trace);
+        for (int p = 0; p < others.size(); p++) {
+            best.addAll(others.get(p).join());
+            if (trace != null) {
+                trace.addAll(otherTraces[p]);
+            }
+        }
+        return best;
+    }
+
+    private TopK rankPartition(DictionarySnapshot current, ScoringPlan plan, int from, int to, IntUnaryOperator idAt,
+                               boolean byFrequency, PreparedQuery query, int[] queryKeys, int limit,
+                               ScoringTrace trace) {
+        TopK best = new TopK(limit);
+        SimilarityKernels.Scratch scratch = SimilarityKernels.scratch();
+        PreparedEntry entry = new PreparedEntry(scratch);
+        FrequencyTable frequencies = current.frequencies();
+        double frequencyWeight = frequencies != null ? plan.frequencyWeight() : 0.0;
+        for (int i = from; i < to; i++) {
+            int id = idAt.applyAsInt(i);
+            // Even a perfect similarity cannot lift this word past the weakest suggestion kept so far, and every
+            // word after it is at most as frequent, so none of them can make it either
+            if (byFrequency && best.isFull()
+                    && withPrior(1.0, frequencyWeight, frequencies.prior(id)) + SCORE_BOUND_SLACK < best.minScore()) {
+                break;
+            }
+            if (!current.isRemoved(id)) {
+                double score = scoreWord(current, plan, id, query, queryKeys, best, entry, scratch, trace);
+                if (score >= 0) {
+                    best.offer(id, score);
+                }
+            }
+        }
+        return best;
+    }
 
-        if (dictionaryNGrams == null) {
-            // Handle the case where dictionaryNGrams is null
-            return 0.0; // or any other appropriate value
+    // Put word ids in descending order of frequency, and equally frequent ones in ascending order. Returns false,
+    // leaving the ids as they are, if the dictionary has no frequencies.
+    private static boolean sortByFrequency(DictionarySnapshot current, int[] ids) {
+        FrequencyTable frequencies = current.frequencies();
+        if (frequencies == null) {
+            return false;
+        }
+        long[] keys = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            keys[i] = (long) (Integer.MAX_VALUE - frequencies.count(ids[i])) << 32 | ids[i];
         }
+        Arrays.sort(keys);
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (int) keys[i];
+        }
+        return true;
+    }
 
-        Set<String> intersection = new HashSet<>(wordNGrams);
-        intersection.retainAll(dictionaryNGrams);
+    // Merge two sets of word ids into one sorted array without duplicates
+    private static int[] union(int[] sortedIds, int[] otherIds) {
+        int[] merged = Arrays.copyOf(sortedIds, sortedIds.length + otherIds.length);
+        System.arraycopy(otherIds, 0, merged, sortedIds.length, otherIds.length);
+        Arrays.sort(merged);
 
-        Set<String> union = new HashSet<>(wordNGrams);
-        union.addAll(dictionaryNGrams);
+        int distinct = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (i == 0 || merged[i] != merged[distinct - 1]) {
+                merged[distinct++] = merged[i];
+            }
+        }
+        return Arrays.copyOf(merged, distinct);
+    }
 
-        return (double) intersection.size() / union.size();
+    // Look up the keys the query was encoded to in the phonetic indexes of the algorithms the plan runs
+    private static int[] encodeQueryKeys(DictionarySnapshot current, ScoringPlan plan, PreparedQuery query) {
+        PhoneticIndex[] phoneticIndexes = current.phoneticIndexes();
+        int[] queryKeys = new int[phoneticIndexes.length];
+        for (int i = 0; i < queryKeys.length; i++) {
+            if (phoneticIndexes[i] != null && plan.runs(i)) {
+                queryKeys[i] = phoneticIndexes[i].queryKeyId(query.key(i));
+            }
+        }
+        return queryKeys;
     }
 
-    // Generate character n-grams for a word
-    private List<String> generateCharacterNGrams(String word, int n) {
-        List<String> nGrams = new ArrayList<>();
-        for (int i = 0; i <= word.length() - n; i++) {
-            nGrams.add(word.substring(i, i + n));
+    // Score a single dictionary word against the query, or return -1 if no algorithm matched or the word
+    // cannot make it into best. The word is copied into the scratch buffer, which entry points at, rather
+    // than materialized, so scoring it with the built-in algorithms allocates nothing.
+    private double scoreWord(DictionarySnapshot current, ScoringPlan plan, int id, PreparedQuery query, int[] queryKeys,
+                             TopK best, PreparedEntry entry, SimilarityKernels.Scratch scratch, ScoringTrace trace) {
+        int length = current.length(id);
+        char[] dictWord = scratch.word(length);
+        current.copyChars(id, dictWord);
+        entry.set(dictWord, length);
+
+        // Once best is full, words that cannot beat its weakest suggestion are skipped early. The n-gram
+        // similarity is cheap and makes up half of the score, so it is computed first to bound the score.
+        boolean pruning = best.isFull();
+        FrequencyTable frequencies = current.frequencies();
+        double frequencyWeight = frequencies != null ? plan.frequencyWeight() : 0.0;
+        double prior = frequencies != null ? frequencies.prior(id) : 0.0;
+        double nGramSimilarity = pruning ? nGramSimilarity(query, dictWord, length, scratch) : Double.NaN;
+        if (pruning && Double.isNaN(nGramSimilarity)) {
+            return -1; // Neither word has an n-gram, so the score is undefined
         }
-        return nGrams;
+
+        PhoneticIndex[] phoneticIndexes = current.phoneticIndexes();
+        double similarityThreshold = plan.threshold();
+        // The passing similarities by algorithm index, or -1 for the others
+        double[] passed = scratch.similarities(similarityAlgorithms.size());
+        Arrays.fill(passed, 0, similarityAlgorithms.size(), -1.0);
+        double totalWeightedScore = 0.0;
+        double totalWeight = 0.0;
+
+        // The algorithms run cheapest first, so the bound below tightens before the costly ones run
+        for (int step = 0; step < plan.stepCount(); step++) {
+            // Skip the remaining algorithms once even perfect similarities from all of them could not get
+            // the word past the weakest suggestion kept so far
+            if (pruning && !best.wouldAccept(id,
+                    maxScore(totalWeightedScore, totalWeight, plan.remainingWeight(step), nGramSimilarity,
+                            frequencyWeight, prior))) {
+                return -1;
+            }
+
+            int i = plan.algorithmAt(step);
+            StringSimilarityAlgorithm algorithm = similarityAlgorithms.get(i);
+            long startTime = trace != null ? System.nanoTime() : 0;
+            double similarity;
+            if (phoneticIndexes[i] != null && current.isIndexed(id)) {
+                // Compare against the key precomputed at load time instead of re-encoding both words
+                similarity = phoneticIndexes[i].matches(id, queryKeys[i]) ? 1.0 : 0.0;
+            } else {
+                // Similarities below the threshold, which the query carries, are discarded, so the algorithm may
+                // stop short of them
+                similarity = algorithm.calculateSimilarity(query, entry);
+            }
+            if (trace != null) {
+                trace.algorithmNanos[i] += System.nanoTime() - startTime;
+                trace.algorithmCalls[i]++;
+            }
+
+            if (similarity >= similarityThreshold) {
+                passed[i] = similarity;
+                totalWeightedScore += similarity * plan.weight(i);
+                totalWeight += plan.weight(i);
+            }
+        }
+
+        if (totalWeight > 0) {
+            // Add up the passing similarities in algorithm order, so the score is exactly the same whatever
+            // order the algorithms ran in
+            totalWeightedScore = 0.0;
+            totalWeight = 0.0;
+            for (int i = 0; i < similarityAlgorithms.size(); i++) {
+                if (passed[i] >= 0) {
+                    double weight = plan.weight(i);
+                    totalWeightedScore += passed[i] * (weight);
+                    totalWeight += weight;
+                }
+            }
+
+            double normalizedScore = totalWeightedScore / totalWeight;
+            normalizedScore = Math.min(normalizedScore, 1.0); // Clamp the score to max 1.0
+            if (!pruning) {
+                nGramSimilarity = nGramSimilarity(query, dictWord, length, scratch);
+            }
+            normalizedScore = (normalizedScore + nGramSimilarity) / 2.0; // Combine with nGram similarity
+
+            return withPrior(normalizedScore, frequencyWeight, prior);
+        }
+        return -1;
+    }
+
+    private double nGramSimilarity(PreparedQuery query, char[] dictWord, int length, SimilarityKernels.Scratch scratch) {
+        int[] nGramKeys = scratch.nGramKeys(length);
+        int nGramCount = SimilarityKernels.nGramKeys(dictWord, length, nGramSize, nGramKeys);
+        return SimilarityKernels.jaccard(query.nGramKeys(), query.nGramCount(), nGramKeys, nGramCount);
+    }
+
+    // An upper bound of the final score of a word, given the algorithms scored so far. Similarities are at
+    // most 1, so the weighted average is highest when every remaining algorithm passes with a similarity of 1.
+    // The bound is padded so that rounding can never make it fall below the exact score.
+    private static double maxScore(double totalWeightedScore, double totalWeight, double remainingWeight,
+                                   double nGramSimilarity, double frequencyWeight, double prior) {
+        double maxWeight = totalWeight + remainingWeight;
+        double maxAverage = maxWeight > 0 ? Math.min(1.0, (totalWeightedScore + remainingWeight) / maxWeight) : 0.0;
+        return withPrior((maxAverage + nGramSimilarity) / 2.0, frequencyWeight, prior) + SCORE_BOUND_SLACK;
+    }
+
+    // Blend a similarity score with the frequency prior of the word. With a weight of 0, as for dictionaries
+    // without frequencies, the score is returned exactly as it was.
+    private static double withPrior(double score, double frequencyWeight, double prior) {
+        return (1 - frequencyWeight) * score + frequencyWeight * prior;
     }
 
     // Metaphone's similarity algorithm
@@ -191,6 +930,33 @@ public class SpellChecker {
             return metaphone1.equals(metaphone2) ? 1.0 : 0.0;
         }
 
+        // Only the dictionary word is encoded; the query was encoded when it was prepared
+        @Override
+        public double calculateSimilarity(PreparedQuery query, PreparedEntry entry) {
+            String key = query.getKey(this);
+            return key != null && key.equals(encodeKey(entry.getText())) ? 1.0 : 0.0;
+        }
+
+        @Override
+        public String encodeKey(String word) {
+            return metaphone.encode(word);
+        }
+
+        @Override
+        public boolean isKeyBased() {
+            return true;
+        }
+
+        @Override
+        public String getName() {
+            return "metaphone";
+        }
+
+        @Override
+        public double getWeight() {
+            return 0.7;
+        }
+
 
     }
 
@@ -210,16 +976,71 @@ public class SpellChecker {
             return soundex1.equals(soundex2) ? 1.0 : 0.0;
         }
 
+        // Only the dictionary word is encoded; the query was encoded when it was prepared
+        @Override
+        public double calculateSimilarity(PreparedQuery query, PreparedEntry entry) {
+            String key = query.getKey(this);
+            return key != null && key.equals(encodeKey(entry.getText())) ? 1.0 : 0.0;
+        }
+
+        @Override
+        public String encodeKey(String word) {
+            try {
+                return soundex.encode(word);
+            } catch (IllegalArgumentException e) {
+                // Soundex has no mapping for letters outside A-Z
+                return null;
+            }
+        }
+
+        @Override
+        public boolean isKeyBased() {
+            return true;
+        }
+
+        @Override
+        public String getName() {
+            return "soundex";
+        }
+
+        @Override
+        public double getWeight() {
+            return 0.6;
+        }
+
 
     }
 
     // Jaro-Winkler similarity algorithm
     public static class JaroWinklerAlgorithm implements StringSimilarityAlgorithm {
+        private final JaroWinklerSimilarity similarity = new JaroWinklerSimilarity();
+
         @Override
         public double calculateSimilarity(String s1, String s2) {
-            JaroWinklerSimilarity similarity = new JaroWinklerSimilarity();
             return similarity.apply(s1, s2);
         }
+
+        @Override
+        public double calculateSimilarity(PreparedQuery query, PreparedEntry entry) {
+            return SimilarityKernels.jaroWinkler(query.chars(), query.getLength(), entry.chars(), entry.getLength(),
+                    entry.scratch());
+        }
+
+        @Override
+        public String getName() {
+            return "jaro-winkler";
+        }
+
+        @Override
+        public double getWeight() {
+            return 0.9;
+        }
+
+        // A single pass over the matching window, with no matrix
+        @Override
+        public double getCost() {
+            return 3.0;
+        }
     }
 
     // Adapter for Damerau-Levenshtein Distance
@@ -233,4 +1054,51 @@ public class SpellChecker {
             return maxLength > 0 ? 1.0 - ((double) distance / maxLength) : 1.0;
         }
 
+        @Override
+        public double calculateSimilarity(PreparedQuery query, PreparedEntry entry) {
+            int length = entry.getLength();
+            // The difference in length alone keeps the similarity below the minimum
+            if (length < query.getMinLength() || length > query.getMaxLength()) {
+                return 0.0;
+            }
+            int maxLength = Math.max(query.getLength(), length);
+            if (maxLength == 0) {
+                return 1.0;
+            }
+            // Past this distance the similarity drops below the minimum, so the distance is only computed up to it
+            int maxDistance = maxDistance(maxLength, query.getMinSimilarity());
+            int distance = SimilarityKernels.damerauLevenshtein(query.chars(), query.getLength(), entry.chars(), length,
+                    maxDistance, entry.scratch());
+            return 1.0 - ((double) distance / maxLength);
+        }
+
+        @Override
+        public String getName() {
+            return "damerau-levenshtein";
+        }
+
+        @Override
+        public double getWeight() {
+            return 0.9;
+        }
+
+        // Fills in a band of the matrix, which is more work than Jaro-Winkler's single pass
+        @Override
+        public double getCost() {
+            return 4.0;
+        }
+
+        // The largest distance whose similarity still reaches minSimilarity, computed with the same
+        // floating point expression as the similarity itself so that no passing word is cut off
+        private static int maxDistance(int maxLength, double minSimilarity) {
+            int maxDistance = (int) Math.min(maxLength, Math.max(0, Math.floor((1.0 - minSimilarity) * maxLength)));
+            while (maxDistance < maxLength && 1.0 - ((double) (maxDistance + 1) / maxLength) >= minSimilarity) {
+                maxDistance++;
+            }
+            while (maxDistance > 0 && 1.0 - ((double) maxDistance / maxLength) < minSimilarity) {
+                maxDistance--;
+            }
+            return maxDistance;
+        }
+
 }}
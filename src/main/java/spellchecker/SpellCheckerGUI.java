@@ -1,29 +1,29 @@
 package spellchecker;
 
-import com.google.gson.JsonArray;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import java.io.IOException;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.CompletableFuture;
 import javafx.scene.control.Button;
-import org.asynchttpclient.*;
 import spellchecker.SpellChecker;
 
 
 public class SpellCheckerGUI extends Application {
+    private static final String DEFAULT_DICTIONARY = "src/main/resources/dictionary.txt";
+
     private final SpellChecker spellChecker;
+    // Shared by every remote check, so its connections are pooled across clicks
+    private final GingerSuggestionProvider remoteChecker;
     private Slider maxSuggestionsSlider;
     private TextArea suggestionsTextArea;
     private Label maxSuggestionsValueLabel;
@@ -33,7 +33,17 @@ public class SpellCheckerGUI extends Application {
 
     public SpellCheckerGUI() {
         spellChecker = new SpellChecker(2);
-        spellChecker.loadDictionary("src/main/resources/dictionary.txt");
+        remoteChecker = GingerSuggestionProvider.fromEnvironment(spellChecker);
+    }
+
+    // The first command line argument, if any, is the dictionary; any others are layered under it as shared dictionaries
+    @Override
+    public void init() throws IOException {
+        List<String> dictionaries = getParameters().getRaw();
+        spellChecker.loadDictionary(dictionaries.isEmpty() ? DEFAULT_DICTIONARY : dictionaries.get(0));
+        for (int i = 1; i < dictionaries.size(); i++) {
+            spellChecker.addSharedDictionary(dictionaries.get(i));
+        }
     }
 
     @Override
@@ -117,7 +127,9 @@ public class SpellCheckerGUI extends Application {
             infoAlert.setTitle("Ginger API Information");
             infoAlert.setHeaderText("Ginger Spell and Grammar Checker API");
             infoAlert.setContentText("The Ginger API provides advanced spell checking and grammar correction. " +
-                    "For more information, visit: https://rapidapi.com/ginger-software-ginger-software-default/api/ginger4");
+                    "For more information, visit: https://rapidapi.com/ginger-software-ginger-software-default/api/ginger4\n\n" +
+                    "Set the " + GingerSuggestionProvider.API_KEY_VARIABLE + " environment variable to your API key. " +
+                    "Without it, or whenever the API does not answer in time, the local spell checker answers instead.");
 
             infoAlert.showAndWait();
         });
@@ -126,20 +138,26 @@ public class SpellCheckerGUI extends Application {
         checkButton.setOnAction(e -> {
             String wordToCheck = inputWord.getText().trim();
             if (aiToggle.isSelected()) {
-                // Use Ginger API
-                String resultText = checkUsingGingerAPI(wordToCheck);
-                suggestionsTextArea.setText(resultText);
+                // Use Ginger API without blocking the UI thread
+                int maxSuggestions = (int) maxSuggestionsSlider.getValue();
+                suggestionsTextArea.setText("Checking " + wordToCheck + "...");
+                long startTime = System.nanoTime();
+                remoteChecker.suggestAsync(wordToCheck, maxSuggestions).whenComplete((suggestions, error) -> {
+                    String resultText;
+                    if (error != null) {
+                        // Neither the service nor the local fallback answered
+                        Throwable cause = error.getCause() != null ? error.getCause() : error;
+                        resultText = "Could not check " + wordToCheck + ": " + cause.getMessage();
+                    } else {
+                        double checkTimeMillis = (double) (System.nanoTime() - startTime) / 1_000_000;
+                        resultText = formatRemoteSuggestions(suggestions)
+                                + "\nRemote Check Time: " + new DecimalFormat("#.##").format(checkTimeMillis) + " ms";
+                    }
+                    Platform.runLater(() -> suggestionsTextArea.setText(resultText));
+                });
             }
             else {
 
-            pathListView.getItems().clear();
-            if (showPathCheckBox.isSelected()) {
-                pathListView.getItems().addAll(spellChecker.path());
-                pathStage.show();
-            } else {
-                pathStage.hide();
-            }
-
             if (wordToCheck.isEmpty() || wordToCheck.matches(".*\\d.*")) {
                 Alert alert = new Alert(Alert.AlertType.ERROR);
                 alert.setTitle("Error");
@@ -150,11 +168,11 @@ public class SpellCheckerGUI extends Application {
             }
 
             int maxSuggestions = (int) maxSuggestionsSlider.getValue();
-            spellChecker.clearPath();
+            List<String> searchPath = new ArrayList<>();
 
             String resultText;
                 long startTime = System.nanoTime();
-                boolean isSpelledCorrectly = spellChecker.checkWord(wordToCheck);
+                boolean isSpelledCorrectly = spellChecker.checkWord(wordToCheck, searchPath);
                 List<Map.Entry<String, Double>> suggestions = spellChecker.suggestCorrections(wordToCheck, maxSuggestions);
                 long endTime = System.nanoTime();
 
@@ -164,6 +182,13 @@ public class SpellCheckerGUI extends Application {
                 resultText += "\nSearch Time: " + df.format(searchTimeMillis) + " ms";
 
             suggestionsTextArea.setText(resultText);
+
+            pathListView.getItems().setAll(searchPath);
+            if (showPathCheckBox.isSelected()) {
+                pathStage.show();
+            } else {
+                pathStage.hide();
+            }
             updateStats();
         }});
 
@@ -174,65 +199,25 @@ public class SpellCheckerGUI extends Application {
     }
 
     private void updateStats() {
-        System.out.println("Updating stats...");
-        spellChecker.loadDictionary("src/main/resources/dictionary.txt");
-    }
-
-    private String checkUsingGingerAPI(String text) {
-        AsyncHttpClient client = new DefaultAsyncHttpClient();
+        // Picks up edits to the dictionary file without rebuilding it
         try {
-            CompletableFuture<Response> futureResponse = client.prepare("POST", "https://ginger4.p.rapidapi.com/correction?lang=US&generateRecommendations=false&flagInformalLanguage=true")
-                    .setHeader("content-type", "text/plain")
-                    .setHeader("X-RapidAPI-Key", "16fbc9e08emsh71b08b0f258851fp150171jsnecf065972717")
-                    .setBody(text)
-                    .execute()
-                    .toCompletableFuture();
-
-            Response response = futureResponse.join();
-            return parseGingerResponse(response.getResponseBody());
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "Error: " + e.getMessage();
-        } finally {
-            try {
-                client.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            spellChecker.reloadDictionary();
+        } catch (IOException e) {
+            suggestionsTextArea.appendText("\nCould not reload the dictionary: " + e.getMessage());
         }
     }
 
-    private String parseGingerResponse(String jsonResponse) {
+    private String formatRemoteSuggestions(Suggestions suggestions) {
+        if (suggestions.size() == 0) {
+            return "No corrections found.\n";
+        }
         StringBuilder result = new StringBuilder();
-        JsonObject jobject = JsonParser.parseString(jsonResponse).getAsJsonObject();
-        JsonObject gingerResult = jobject.getAsJsonObject("GingerTheDocumentResult");
-
-        if (gingerResult != null) {
-            JsonArray corrections = gingerResult.getAsJsonArray("Corrections");
-            if (corrections != null) {
-                for (JsonElement correctionElement : corrections) {
-                    JsonObject correction = correctionElement.getAsJsonObject();
-                    JsonArray suggestions = correction.getAsJsonArray("Suggestions");
-                    if (suggestions != null && !suggestions.isEmpty()) {
-                        JsonObject firstSuggestion = suggestions.get(0).getAsJsonObject();
-                        String suggestionText = firstSuggestion.get("Text").getAsString();
-                        result.append(suggestionText).append("\n");
-                    }
-                }
-            } else {
-                result.append("No corrections found.");
-            }
-        } else {
-            result.append("Invalid response format.");
+        for (int i = 0; i < suggestions.size(); i++) {
+            result.append(suggestions.getWord(i)).append("\n");
         }
-
         return result.toString();
     }
 
-
-
-
-
     private String formatSuggestions(boolean isSpelledCorrectly, String word, List<Map.Entry<String, Double>> suggestions) {
         DecimalFormat df = new DecimalFormat("#.##");
         StringBuilder resultText = new StringBuilder();
@@ -252,6 +237,11 @@ public class SpellCheckerGUI extends Application {
     }
 
 
+    @Override
+    public void stop() throws IOException {
+        remoteChecker.close();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -0,0 +1,81 @@
+package spellchecker;
+
+import java.io.IOException;
+
+/**
+ * Receives timings and counts from a {@link SpellChecker}, for metrics or tracing. Every method has
+ * an empty default, so implementations only override what they record. Methods are called on the
+ * querying threads, concurrently, and should return quickly.
+ *
+ * <p>Without a listener the spell checker does not read the clock or collect any of this. With one,
+ * every scored word also costs two clock reads per similarity algorithm.</p>
+ */
+public interface SpellCheckerListener {
+
+    /**
+     * Called after a dictionary has been loaded.
+     * @param nanos the time taken to load it and build or map its indexes.
+     * @param wordCount the number of words loaded.
+     * @param fromImage true if it was mapped from a prebuilt dictionary image rather than parsed from text.
+     */
+    default void dictionaryLoaded(long nanos, int wordCount, boolean fromImage) {
+    }
+
+    /**
+     * Called when an up to date dictionary image could not be read, for instance because it is corrupt or was
+     * built with other parameters, just before the text dictionary is loaded instead.
+     * @param imageFilename the image file.
+     * @param error why it could not be read.
+     */
+    default void dictionaryImageRejected(String imageFilename, IOException error) {
+    }
+
+    /**
+     * Called when the file watched through {@code watchDictionary} changed but could not be reloaded. The
+     * dictionary is left as it was, and the file is still watched.
+     * @param dictionaryFilename the dictionary file.
+     * @param error why it could not be reloaded.
+     */
+    default void dictionaryReloadFailed(String dictionaryFilename, Exception error) {
+    }
+
+    /**
+     * Called after every {@code checkWord}.
+     * @param nanos the time taken by the lookup.
+     * @param found true if the word is in the dictionary.
+     */
+    default void lookupCompleted(long nanos, boolean found) {
+    }
+
+    /**
+     * Called after every suggestion request, once its time has been attributed through
+     * {@link #algorithmTimed} when it had to be computed.
+     * @param nanos the time taken, including the cache lookup.
+     * @param candidates the number of words considered for scoring; 0 if the request was answered from the cache.
+     * @param suggestions the number of suggestions returned.
+     * @param cached true if the request was answered from the suggestion cache.
+     */
+    default void suggestionCompleted(long nanos, int candidates, int suggestions, boolean cached) {
+    }
+
+    /**
+     * Called once per similarity algorithm for every computed suggestion request, with the time spent in
+     * that algorithm across all candidates and scoring threads.
+     * @param algorithm the algorithm.
+     * @param nanos the time spent in it.
+     * @param calls the number of words it compared with the query; pruned words are not counted.
+     */
+    default void algorithmTimed(StringSimilarityAlgorithm algorithm, long nanos, int calls) {
+    }
+
+    /**
+     * Called after every request to a remote provider such as {@link GingerSuggestionProvider}, so that the
+     * cost of remote checks is reported apart from the local engine's. When a remote check fails, the time
+     * taken by the local fallback is reported through {@link #suggestionCompleted} as usual.
+     * @param nanos the time taken by the call to the service; 0 if it was answered from the provider's cache.
+     * @param succeeded true if the service answered successfully.
+     * @param cached true if the request was answered from the provider's cache without calling the service.
+     */
+    default void remoteCheckCompleted(long nanos, boolean succeeded, boolean cached) {
+    }
+}
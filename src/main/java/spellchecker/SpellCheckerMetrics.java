@@ -0,0 +1,294 @@
+package spellchecker;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A {@link SpellCheckerListener} that aggregates what a spell checker reports into latency histograms
+ * and counters, and exposes them, together with the live dictionary and suggestion cache figures, as an
+ * MXBean named {@code spellchecker:type=SpellChecker,name=<name>}.
+ */
+public final class SpellCheckerMetrics implements SpellCheckerListener, SpellCheckerMetricsMXBean {
+
+    private static final double NANOS_PER_MICRO = 1e3;
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final SpellChecker spellChecker;
+    private final ObjectName objectName;
+    private final LatencyHistogram lookups = new LatencyHistogram();
+    private final LongAdder lookupHits = new LongAdder();
+    private final LatencyHistogram suggestions = new LatencyHistogram();
+    private final LongAdder computedSuggestions = new LongAdder();
+    private final LongAdder candidates = new LongAdder();
+    private final Map<String, LongAdder> algorithmNanos = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> algorithmCalls = new ConcurrentHashMap<>();
+    private final LatencyHistogram remoteCalls = new LatencyHistogram();
+    private final LongAdder remoteFailures = new LongAdder();
+    private final LongAdder remoteCacheHits = new LongAdder();
+    private final LongAdder dictionaryLoads = new LongAdder();
+    private volatile long lastLoadNanos;
+    private volatile boolean lastLoadFromImage;
+
+    private SpellCheckerMetrics(SpellChecker spellChecker, ObjectName objectName) {
+        this.spellChecker = spellChecker;
+        this.objectName = objectName;
+    }
+
+    /**
+     * Start collecting metrics of a spell checker and register them with the platform MBean server.
+     * This replaces any listener already attached to the spell checker.
+     * @param spellChecker the spell checker.
+     * @param name the name of the MBean, telling apart several spell checkers in one JVM.
+     * @return the metrics.
+     * @throws JMException if the name is invalid or already registered.
+     */
+    public static SpellCheckerMetrics attach(SpellChecker spellChecker, String name) throws JMException {
+        ObjectName objectName = new ObjectName("spellchecker:type=SpellChecker,name=" + ObjectName.quote(name));
+        SpellCheckerMetrics metrics = new SpellCheckerMetrics(spellChecker, objectName);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, objectName);
+        spellChecker.setListener(metrics);
+        return metrics;
+    }
+
+    /**
+     * Stop collecting metrics and unregister the MBean.
+     */
+    public void detach() {
+        spellChecker.removeListener(this);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    @Override
+    public void dictionaryLoaded(long nanos, int wordCount, boolean fromImage) {
+        dictionaryLoads.increment();
+        lastLoadNanos = nanos;
+        lastLoadFromImage = fromImage;
+    }
+
+    @Override
+    public void lookupCompleted(long nanos, boolean found) {
+        lookups.record(nanos);
+        if (found) {
+            lookupHits.increment();
+        }
+    }
+
+    @Override
+    public void suggestionCompleted(long nanos, int candidates, int suggestions, boolean cached) {
+        this.suggestions.record(nanos);
+        if (!cached) {
+            computedSuggestions.increment();
+            this.candidates.add(candidates);
+        }
+    }
+
+    @Override
+    public void algorithmTimed(StringSimilarityAlgorithm algorithm, long nanos, int calls) {
+        String name = algorithm.getName();
+        algorithmNanos.computeIfAbsent(name, k -> new LongAdder()).add(nanos);
+        algorithmCalls.computeIfAbsent(name, k -> new LongAdder()).add(calls);
+    }
+
+    @Override
+    public void remoteCheckCompleted(long nanos, boolean succeeded, boolean cached) {
+        if (cached) {
+            remoteCacheHits.increment();
+            return;
+        }
+        remoteCalls.record(nanos);
+        if (!succeeded) {
+            remoteFailures.increment();
+        }
+    }
+
+    @Override
+    public int getDictionaryWordCount() {
+        return spellChecker.snapshot().layeredWordCount();
+    }
+
+    @Override
+    public int getDictionaryOverlaySize() {
+        return spellChecker.snapshot().overlaySize();
+    }
+
+    @Override
+    public long getDictionaryLoadCount() {
+        return dictionaryLoads.sum();
+    }
+
+    @Override
+    public double getLastDictionaryLoadMillis() {
+        return lastLoadNanos / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public boolean isLastDictionaryLoadFromImage() {
+        return lastLoadFromImage;
+    }
+
+    @Override
+    public long getLookupCount() {
+        return lookups.count();
+    }
+
+    @Override
+    public double getLookupHitRate() {
+        long count = lookups.count();
+        return count > 0 ? (double) lookupHits.sum() / count : 0.0;
+    }
+
+    @Override
+    public double getLookupMeanMicros() {
+        return lookups.meanNanos() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getLookupP50Micros() {
+        return lookups.percentileNanos(50) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getLookupP99Micros() {
+        return lookups.percentileNanos(99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getSuggestionCount() {
+        return suggestions.count();
+    }
+
+    @Override
+    public double getSuggestionMeanMicros() {
+        return suggestions.meanNanos() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getSuggestionP50Micros() {
+        return suggestions.percentileNanos(50) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getSuggestionP99Micros() {
+        return suggestions.percentileNanos(99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getMeanCandidatesScored() {
+        long computed = computedSuggestions.sum();
+        return computed > 0 ? (double) candidates.sum() / computed : 0.0;
+    }
+
+    @Override
+    public Map<String, Long> getAlgorithmNanos() {
+        return sums(algorithmNanos);
+    }
+
+    @Override
+    public Map<String, Long> getAlgorithmCalls() {
+        return sums(algorithmCalls);
+    }
+
+    @Override
+    public long getRemoteCallCount() {
+        return remoteCalls.count();
+    }
+
+    @Override
+    public long getRemoteFailureCount() {
+        return remoteFailures.sum();
+    }
+
+    @Override
+    public long getRemoteCacheHits() {
+        return remoteCacheHits.sum();
+    }
+
+    @Override
+    public double getRemoteMeanMicros() {
+        return remoteCalls.meanNanos() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getRemoteP50Micros() {
+        return remoteCalls.percentileNanos(50) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public double getRemoteP99Micros() {
+        return remoteCalls.percentileNanos(99) / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long getCacheHits() {
+        CacheStats stats = spellChecker.getCacheStats();
+        return stats != null ? stats.getHits() : 0;
+    }
+
+    @Override
+    public long getCacheMisses() {
+        CacheStats stats = spellChecker.getCacheStats();
+        return stats != null ? stats.getMisses() : 0;
+    }
+
+    @Override
+    public long getCacheEvictions() {
+        CacheStats stats = spellChecker.getCacheStats();
+        return stats != null ? stats.getEvictions() : 0;
+    }
+
+    @Override
+    public long getCacheEntries() {
+        CacheStats stats = spellChecker.getCacheStats();
+        return stats != null ? stats.getEntries() : 0;
+    }
+
+    @Override
+    public long getCacheBytes() {
+        CacheStats stats = spellChecker.getCacheStats();
+        return stats != null ? stats.getBytes() : 0;
+    }
+
+    @Override
+    public double getCacheHitRate() {
+        CacheStats stats = spellChecker.getCacheStats();
+        return stats != null ? stats.getHitRate() : 0.0;
+    }
+
+    @Override
+    public void reset() {
+        lookups.reset();
+        lookupHits.reset();
+        suggestions.reset();
+        computedSuggestions.reset();
+        candidates.reset();
+        remoteCalls.reset();
+        remoteFailures.reset();
+        remoteCacheHits.reset();
+        algorithmNanos.clear();
+        algorithmCalls.clear();
+        dictionaryLoads.reset();
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> adders) {
+        Map<String, Long> sums = new TreeMap<>();
+        adders.forEach((name, adder) -> sums.put(name, adder.sum()));
+        return sums;
+    }
+}
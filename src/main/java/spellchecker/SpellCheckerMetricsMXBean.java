@@ -0,0 +1,77 @@
+package spellchecker;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link SpellCheckerMetrics}, as shown by JConsole or any other JMX client.
+ * Latencies are in microseconds; percentiles are accurate to within a factor of two.
+ */
+public interface SpellCheckerMetricsMXBean {
+
+    // Words of the dictionary and of the shared dictionaries layered under it
+    int getDictionaryWordCount();
+
+    // Words added or removed since the last load that are not yet folded into the indexes
+    int getDictionaryOverlaySize();
+
+    long getDictionaryLoadCount();
+
+    double getLastDictionaryLoadMillis();
+
+    boolean isLastDictionaryLoadFromImage();
+
+    long getLookupCount();
+
+    double getLookupHitRate();
+
+    double getLookupMeanMicros();
+
+    double getLookupP50Micros();
+
+    double getLookupP99Micros();
+
+    long getSuggestionCount();
+
+    double getSuggestionMeanMicros();
+
+    double getSuggestionP50Micros();
+
+    double getSuggestionP99Micros();
+
+    // The mean number of words considered per computed suggestion request
+    double getMeanCandidatesScored();
+
+    // The total time spent in each similarity algorithm, by algorithm name
+    Map<String, Long> getAlgorithmNanos();
+
+    // The number of words each similarity algorithm compared with a query, by algorithm name
+    Map<String, Long> getAlgorithmCalls();
+
+    // Calls to a remote provider, not counting answers from its cache
+    long getRemoteCallCount();
+
+    long getRemoteFailureCount();
+
+    long getRemoteCacheHits();
+
+    double getRemoteMeanMicros();
+
+    double getRemoteP50Micros();
+
+    double getRemoteP99Micros();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    long getCacheEvictions();
+
+    long getCacheEntries();
+
+    long getCacheBytes();
+
+    double getCacheHitRate();
+
+    // Forget everything recorded so far; the dictionary and cache figures are live and are not affected
+    void reset();
+}
@@ -1,6 +1,72 @@
 package spellchecker;
 
 public interface StringSimilarityAlgorithm {
+    /**
+     * Calculate how similar two words are.
+     * @param s1 the first word.
+     * @param s2 the second word.
+     * @return the similarity, from 0 (unrelated) to 1 (equal).
+     */
     double calculateSimilarity(String s1, String s2);
 
+    /**
+     * Calculate the same similarity as {@link #calculateSimilarity(String, String)} between a prepared query
+     * and a dictionary word, as far as it is of interest to the caller. The spell checker uses this form while
+     * ranking: the query is lowercased, split and encoded once per request rather than once per word, and
+     * algorithms that work on chars need no String for the word. An algorithm may stop as soon as it knows
+     * the similarity falls short of {@link PreparedQuery#getMinSimilarity()}.
+     * @param query the prepared query.
+     * @param entry the dictionary word.
+     * @return the similarity if it is at least the minimum similarity of the query, otherwise some value below it.
+     */
+    default double calculateSimilarity(PreparedQuery query, PreparedEntry entry) {
+        return calculateSimilarity(query.getText(), entry.getText());
+    }
+
+    /**
+     * Get a key for the word such that two words are fully similar exactly when their keys are equal,
+     * as is the case for phonetic codes. Algorithms that expose a key have it precomputed for every
+     * dictionary word and are matched through a bucket lookup instead of a per-word comparison.
+     * @param word the word to encode.
+     * @return the key, or null if the algorithm is not key-based or the word cannot be encoded.
+     */
+    default String encodeKey(String word) {
+        return null;
+    }
+
+    /**
+     * Whether this algorithm exposes keys through {@link #encodeKey(String)}.
+     * @return true if the algorithm is key-based.
+     */
+    default boolean isKeyBased() {
+        return false;
+    }
+
+    /**
+     * Get the name the algorithm is referred to by in a {@link ScoringConfig}.
+     * @return the name; the simple class name unless overridden.
+     */
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * Get how much the similarity counts towards the score of a suggestion, relative to the other algorithms.
+     * A {@link ScoringConfig} may override it.
+     * @return the weight, at least 0.
+     */
+    default double getWeight() {
+        return 1.0;
+    }
+
+    /**
+     * Get the relative cost of comparing one dictionary word with the query, where an exact comparison of
+     * precomputed keys costs 1. Algorithms run cheapest first, so that words are dropped before the costly
+     * ones run.
+     * @return the cost; key-based algorithms cost 1, other algorithms 10 unless overridden.
+     */
+    default double getCost() {
+        return isKeyBased() ? 1.0 : 10.0;
+    }
+
 }
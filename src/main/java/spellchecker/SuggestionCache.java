@@ -0,0 +1,195 @@
+package spellchecker;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of ranked suggestion lists. Requests are grouped into buckets of maxSuggestions (powers
+ * of two), and every entry holds the full list of its bucket, so a request for fewer suggestions is served
+ * by a prefix of it.
+ *
+ * <p>The cache is split into segments, each a least recently used map behind its own lock, so concurrent
+ * queries rarely contend. Every segment holds up to an equal share of the size budget, measured as the
+ * estimated heap size of the entries rather than their number, since the lists vary in size. Entries
+ * remember the dictionary snapshot and scoring plan they were computed with and are never served for
+ * another one.</p>
+ */
+final class SuggestionCache {
+
+    /** The largest bucket; requests for more suggestions bypass the cache. */
+    static final int MAX_BUCKET = 256;
+
+    private static final int MIN_BUCKET = 8;
+    private static final int SEGMENTS = 16;
+    // Rough heap cost of an entry and of each suggestion in it, besides the chars of the words
+    private static final int ENTRY_OVERHEAD = 160;
+    private static final int SUGGESTION_OVERHEAD = 56;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Create an empty cache.
+     * @param maxBytes the estimated heap size the entries may take up.
+     */
+    SuggestionCache(long maxBytes) {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(Math.max(1, maxBytes / SEGMENTS));
+        }
+    }
+
+    /**
+     * Get the bucket a request belongs to.
+     * @param maxSuggestions the number of suggestions requested.
+     * @return the number of suggestions to compute and cache for it, or -1 if it is not cached.
+     */
+    static int bucket(int maxSuggestions) {
+        if (maxSuggestions > MAX_BUCKET) {
+            return -1;
+        }
+        return Math.max(MIN_BUCKET, Integer.highestOneBit(Math.max(1, maxSuggestions - 1)) << 1);
+    }
+
+    /**
+     * Look up the suggestions for a word.
+     * @param word the lowercased word.
+     * @param bucket the bucket of the request.
+     * @param snapshot the snapshot the suggestions must have been computed from.
+     * @param plan the scoring plan the suggestions must have been computed with.
+     * @return the cached suggestions, or null on a miss.
+     */
+    Suggestions get(String word, int bucket, DictionarySnapshot snapshot, ScoringPlan plan) {
+        Key key = new Key(word, bucket);
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Entry entry = segment.get(key);
+            if (entry != null && entry.snapshot == snapshot && entry.plan == plan) {
+                hits.increment();
+                return entry.suggestions;
+            }
+            if (entry != null) {
+                segment.remove(key);
+                segment.bytes -= entry.bytes;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Cache the suggestions for a word.
+     * @param word the lowercased word.
+     * @param bucket the bucket of the request.
+     * @param snapshot the snapshot the suggestions were computed from.
+     * @param plan the scoring plan the suggestions were computed with.
+     * @param suggestions the suggestions.
+     */
+    void put(String word, int bucket, DictionarySnapshot snapshot, ScoringPlan plan, Suggestions suggestions) {
+        Key key = new Key(word, bucket);
+        Entry entry = new Entry(snapshot, plan, suggestions, estimateBytes(word, suggestions));
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Entry previous = segment.put(key, entry);
+            segment.bytes += entry.bytes - (previous != null ? previous.bytes : 0);
+
+            // Evict the least recently used entries, but always keep the one just added
+            Iterator<Entry> eldest = segment.values().iterator();
+            while (segment.bytes > segment.maxBytes && segment.size() > 1) {
+                Entry evicted = eldest.next();
+                eldest.remove();
+                segment.bytes -= evicted.bytes;
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Drop every entry, as they can no longer be served once the dictionary has changed.
+     */
+    void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+                segment.bytes = 0;
+            }
+        }
+    }
+
+    CacheStats stats() {
+        long entries = 0;
+        long bytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                entries += segment.size();
+                bytes += segment.bytes;
+            }
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries, bytes);
+    }
+
+    private Segment segmentFor(Key key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    private static long estimateBytes(String word, Suggestions suggestions) {
+        long bytes = ENTRY_OVERHEAD + 2L * word.length();
+        for (int i = 0; i < suggestions.size(); i++) {
+            bytes += SUGGESTION_OVERHEAD + 2L * suggestions.getWord(i).length();
+        }
+        return bytes;
+    }
+
+    private static final class Segment extends LinkedHashMap<Key, Entry> {
+        private static final long serialVersionUID = 1L;
+
+        private final long maxBytes;
+        private long bytes;
+
+        Segment(long maxBytes) {
+            super(16, 0.75f, true);
+            this.maxBytes = maxBytes;
+        }
+    }
+
+    private static final class Key {
+        private final String word;
+        private final int bucket;
+
+        Key(String word, int bucket) {
+            this.word = word;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return bucket == other.bucket && word.equals(other.word);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * word.hashCode() + bucket;
+        }
+    }
+
+    private static final class Entry {
+        private final DictionarySnapshot snapshot;
+        private final ScoringPlan plan;
+        private final Suggestions suggestions;
+        private final long bytes;
+
+        Entry(DictionarySnapshot snapshot, ScoringPlan plan, Suggestions suggestions, long bytes) {
+            this.snapshot = snapshot;
+            this.plan = plan;
+            this.suggestions = suggestions;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package spellchecker;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Anything that suggests corrections for a word: the local {@link SpellChecker} or a remote service such
+ * as {@link GingerSuggestionProvider}, so callers can switch between them.
+ */
+public interface SuggestionProvider {
+
+    /**
+     * Suggest corrections for a word, blocking until they are known.
+     * @param word the word.
+     * @param maxSuggestions the maximum number of suggestions.
+     * @return the suggestions, best first.
+     */
+    Suggestions suggest(String word, int maxSuggestions);
+
+    /**
+     * Suggest corrections for a word without blocking the caller. Providers that compute locally run
+     * {@link #suggest(String, int)} on the calling thread unless they override this.
+     * @param word the word.
+     * @param maxSuggestions the maximum number of suggestions.
+     * @return a future of the suggestions, best first.
+     */
+    default CompletableFuture<Suggestions> suggestAsync(String word, int maxSuggestions) {
+        return CompletableFuture.completedFuture(suggest(word, maxSuggestions));
+    }
+}
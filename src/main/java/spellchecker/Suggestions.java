@@ -0,0 +1,66 @@
+package spellchecker;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A ranked list of suggested corrections, best first, stored as a word array and a parallel array of
+ * primitive scores instead of one boxed map entry per suggestion. Instances are immutable.
+ */
+public final class Suggestions {
+    private final String[] words;
+    private final double[] scores;
+
+    Suggestions(String[] words, double[] scores) {
+        this.words = words;
+        this.scores = scores;
+    }
+
+    public int size() {
+        return words.length;
+    }
+
+    public String getWord(int index) {
+        return words[index];
+    }
+
+    public double getScore(int index) {
+        return scores[index];
+    }
+
+    /**
+     * Get the best suggestions of this list.
+     * @param count the maximum number of suggestions to keep.
+     * @return the first count suggestions, or this list if it is not longer than that.
+     */
+    public Suggestions prefix(int count) {
+        if (count >= words.length) {
+            return this;
+        }
+        return new Suggestions(Arrays.copyOf(words, count), Arrays.copyOf(scores, count));
+    }
+
+    /**
+     * Convert to the representation returned by {@link SpellChecker#suggestCorrections(String, long)}.
+     * @return a new, modifiable list of (word, score) entries.
+     */
+    public List<Map.Entry<String, Double>> toList() {
+        List<Map.Entry<String, Double>> list = new ArrayList<>(words.length);
+        for (int i = 0; i < words.length; i++) {
+            list.add(new AbstractMap.SimpleImmutableEntry<>(words[i], scores[i]));
+        }
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < words.length; i++) {
+            builder.append(i > 0 ? ", " : "").append(words[i]).append('=').append(scores[i]);
+        }
+        return builder.append(']').toString();
+    }
+}
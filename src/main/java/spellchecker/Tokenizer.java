@@ -0,0 +1,131 @@
+package spellchecker;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits a character stream into words, reading it through a fixed-size buffer so that a document
+ * of any size is tokenized in constant memory. A word is a run of letters, possibly joined by single
+ * apostrophes ("don't"). Runs that contain digits ("mp3", "2nd") are skipped, as the spell checker
+ * has nothing to suggest for them.
+ */
+final class Tokenizer {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder token = new StringBuilder();
+    private int position;
+    private int limit;
+    // Offset of buffer[0] in the stream
+    private long bufferOffset;
+    private long tokenOffset;
+    private boolean endOfStream;
+
+    Tokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Advance to the next word.
+     * @return true if there is one, false at the end of the stream.
+     * @throws IOException if the stream cannot be read.
+     */
+    boolean next() throws IOException {
+        while (true) {
+            // Skip to the start of the next run of letters or digits
+            int c;
+            while ((c = peek()) >= 0 && !isWordChar((char) c)) {
+                position++;
+            }
+            if (c < 0) {
+                return false;
+            }
+
+            token.setLength(0);
+            tokenOffset = bufferOffset + position;
+            boolean hasDigit = false;
+            while ((c = peek()) >= 0) {
+                if (isWordChar((char) c)) {
+                    hasDigit |= Character.isDigit((char) c);
+                    token.append((char) c);
+                    position++;
+                } else if (c == '\'' && token.length() > 0 && isLetterAfterApostrophe()) {
+                    token.append('\'');
+                    position++;
+                } else {
+                    break;
+                }
+            }
+            if (!hasDigit) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Get the current word, as it appears in the stream.
+     * @return the word.
+     */
+    String token() {
+        return token.toString();
+    }
+
+    /**
+     * Get the offset of the current word.
+     * @return the number of chars preceding the word in the stream.
+     */
+    long offset() {
+        return tokenOffset;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    // The char at the current position, filling the buffer as needed, or -1 at the end of the stream
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    // Whether the apostrophe at the current position is followed by a letter, keeping it in the buffer
+    private boolean isLetterAfterApostrophe() throws IOException {
+        if (position + 1 == limit) {
+            // Move the apostrophe to the front so the char after it can be read into the same buffer
+            buffer[0] = buffer[position];
+            bufferOffset += position;
+            position = 0;
+            limit = 1;
+            int read = endOfStream ? -1 : reader.read(buffer, 1, buffer.length - 1);
+            if (read < 0) {
+                endOfStream = true;
+                return false;
+            }
+            limit += read;
+        }
+        return Character.isLetter(buffer[position + 1]);
+    }
+
+    private boolean fill() throws IOException {
+        if (endOfStream) {
+            return false;
+        }
+        bufferOffset += limit;
+        position = 0;
+        limit = 0;
+        int read;
+        do {
+            read = reader.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        if (read < 0) {
+            endOfStream = true;
+            return false;
+        }
+        limit = read;
+        return true;
+    }
+}
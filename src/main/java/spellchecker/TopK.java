@@ -0,0 +1,147 @@
+package spellchecker;
+
+/**
+ * A bounded selection of the k best (word id, score) pairs, kept in a primitive min-heap so the
+ * weakest retained pair can be replaced in O(log k). Ties on score are broken in favour of the
+ * lower word id, which makes the selection independent of the order pairs are offered in.
+ */
+final class TopK {
+
+    private final int capacity;
+    private final int[] ids;
+    private final double[] scores;
+    private int size;
+
+    /**
+     * Create an empty selection.
+     * @param capacity the maximum number of pairs to keep.
+     */
+    TopK(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        this.ids = new int[this.capacity];
+        this.scores = new double[this.capacity];
+    }
+
+    /**
+     * Offer a pair, keeping it only if it is among the best k seen so far.
+     * @param id the word id.
+     * @param score the score of the word.
+     */
+    void offer(int id, double score) {
+        if (size < capacity) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (capacity > 0 && isBetter(score, id, scores[0], ids[0])) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Offer every pair retained by another selection.
+     * @param other the selection to merge into this one.
+     */
+    void addAll(TopK other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.ids[i], other.scores[i]);
+        }
+    }
+
+    /**
+     * Get the number of pairs retained.
+     * @return the size.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Check whether k pairs have been retained, after which only better pairs are accepted.
+     * @return true if the selection is full.
+     */
+    boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * Check whether a pair would be kept if it were offered now.
+     * @param id the word id.
+     * @param score the score of the word.
+     * @return true if the selection is not full or the pair beats its weakest pair.
+     */
+    boolean wouldAccept(int id, double score) {
+        return size < capacity || (capacity > 0 && isBetter(score, id, scores[0], ids[0]));
+    }
+
+    /**
+     * Get the weakest retained score.
+     * @return the lowest score, or negative infinity if nothing is retained.
+     */
+    double minScore() {
+        return size > 0 ? scores[0] : Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Empty the selection into arrays ordered from best to worst. The selection is empty afterwards.
+     * @param idsOut receives the word ids; must hold at least {@link #size()} elements.
+     * @param scoresOut receives the scores, or null if they are not needed.
+     */
+    void drainDescending(int[] idsOut, double[] scoresOut) {
+        for (int i = size - 1; i >= 0; i--) {
+            idsOut[i] = ids[0];
+            if (scoresOut != null) {
+                scoresOut[i] = scores[0];
+            }
+            size--;
+            ids[0] = ids[size];
+            scores[0] = scores[size];
+            siftDown(0);
+        }
+    }
+
+    // Higher scores win; equal scores prefer the lower (alphabetically earlier) word id
+    private static boolean isBetter(double score, int id, double otherScore, int otherId) {
+        return score > otherScore || (score == otherScore && id < otherId);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!isBetter(scores[parent], ids[parent], scores[index], ids[index])) {
+                break;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int weakest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && isBetter(scores[weakest], ids[weakest], scores[left], ids[left])) {
+                weakest = left;
+            }
+            if (right < size && isBetter(scores[weakest], ids[weakest], scores[right], ids[right])) {
+                weakest = right;
+            }
+            if (weakest == index) {
+                return;
+            }
+            swap(weakest, index);
+            index = weakest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
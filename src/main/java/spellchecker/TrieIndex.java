@@ -0,0 +1,220 @@
+package spellchecker;
+
+import java.util.Arrays;
+
+/**
+ * A character trie over the words of a {@link CompactDictionary}, searched for every word within an edit
+ * distance of a query in a single walk.
+ *
+ * <p>Words sharing a prefix share the path spelling it, so the dynamic programming row of the optimal
+ * string alignment distance is computed once per trie node rather than once per word: descending an edge
+ * adds one row to those of its parent. Once two consecutive rows lie entirely above the bound no
+ * extension of the prefix can come back within it, and the whole subtree is skipped. Unlike the
+ * {@link DeletionIndex}, the bound is chosen per query and costs no extra memory.</p>
+ *
+ * <p>The nodes are stored in preorder in three flat arrays: the label of the edge leading to the node,
+ * the end of its subtree, and the id of the word ending there. The first child of a node is the next
+ * node and each further child starts where the subtree of the one before it ends. Since the dictionary
+ * is sorted, the nodes are built in a single pass and the words come out of a walk in ascending id order.
+ * The trie is built on the first search, so loading a dictionary image stays as cheap as mapping it.</p>
+ */
+final class TrieIndex {
+
+    private final CompactDictionary dictionary;
+    // Built on the first lookup; the arrays are never modified afterwards
+    private volatile Nodes nodes;
+
+    /**
+     * Create the index for a dictionary. The trie itself is built on the first lookup.
+     * @param dictionary the dictionary words.
+     */
+    TrieIndex(CompactDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Get the ids of all dictionary words within an optimal string alignment distance of the query,
+     * the same distance the {@link DeletionIndex} uses.
+     * @param query the lowercased query word.
+     * @param maxDistance the largest distance of a match.
+     * @return the matching word ids in ascending order.
+     */
+    int[] lookup(String query, int maxDistance) {
+        if (maxDistance < 0) {
+            return new int[0];
+        }
+        Search search = new Search(nodes(), query.toCharArray(), maxDistance);
+        int[] first = search.rows[0];
+        for (int j = 0; j < first.length; j++) {
+            first[j] = Math.min(j, maxDistance + 1);
+        }
+        if (first[first.length - 1] <= maxDistance && search.nodes.wordIds[0] >= 0) {
+            search.add(search.nodes.wordIds[0]);
+        }
+        search.visitChildren(0, 0, 0);
+        return Arrays.copyOf(search.matches, search.count);
+    }
+
+    private Nodes nodes() {
+        Nodes built = nodes;
+        if (built == null) {
+            synchronized (this) {
+                built = nodes;
+                if (built == null) {
+                    built = new Nodes(dictionary);
+                    nodes = built;
+                }
+            }
+        }
+        return built;
+    }
+
+    // The preorder node arrays; node 0 is the root and has no label
+    private static final class Nodes {
+        final char[] labels;
+        final int[] subtreeEnds;
+        final int[] wordIds;
+        final int maxDepth;
+
+        Nodes(CompactDictionary dictionary) {
+            char[] labels = new char[1024];
+            int[] subtreeEnds = new int[1024];
+            int[] wordIds = new int[1024];
+            int[] path = new int[16];
+            char[] previous = new char[16];
+            char[] word = new char[16];
+            int previousLength = 0;
+            int maxLength = 0;
+            int depth = 0;
+            int size = 1;
+            wordIds[0] = -1;
+
+            // path[d] is the open node at depth d; a node is opened for every char beyond the prefix a word
+            // shares with the one before it, and closing a node fixes the end of its subtree
+            for (int id = 0; id < dictionary.size(); id++) {
+                int length = dictionary.length(id);
+                if (word.length < length) {
+                    word = new char[Math.max(length, 2 * word.length)];
+                }
+                dictionary.copyChars(id, word);
+                int shared = commonPrefix(previous, previousLength, word, length);
+                while (depth > shared) {
+                    subtreeEnds[path[depth--]] = size;
+                }
+                if (size + length - shared > labels.length) {
+                    int capacity = Math.max(size + length - shared, 2 * labels.length);
+                    labels = Arrays.copyOf(labels, capacity);
+                    subtreeEnds = Arrays.copyOf(subtreeEnds, capacity);
+                    wordIds = Arrays.copyOf(wordIds, capacity);
+                }
+                if (path.length <= length) {
+                    path = Arrays.copyOf(path, Math.max(length + 1, 2 * path.length));
+                }
+                for (int d = shared; d < length; d++) {
+                    labels[size] = word[d];
+                    wordIds[size] = -1;
+                    path[++depth] = size++;
+                }
+                wordIds[path[depth]] = id;
+                maxLength = Math.max(maxLength, length);
+
+                char[] recycled = previous;
+                previous = word;
+                previousLength = length;
+                word = recycled;
+            }
+            while (depth >= 0) {
+                subtreeEnds[path[depth--]] = size;
+            }
+
+            this.labels = Arrays.copyOf(labels, size);
+            this.subtreeEnds = Arrays.copyOf(subtreeEnds, size);
+            this.wordIds = Arrays.copyOf(wordIds, size);
+            this.maxDepth = maxLength;
+        }
+
+        private static int commonPrefix(char[] a, int aLength, char[] b, int bLength) {
+            int limit = Math.min(aLength, bLength);
+            int i = 0;
+            while (i < limit && a[i] == b[i]) {
+                i++;
+            }
+            return i;
+        }
+    }
+
+    // The state of one walk: a distance row and the label for every depth of the current path
+    private static final class Search {
+        final Nodes nodes;
+        final char[] query;
+        final int maxDistance;
+        final int[][] rows;
+        final char[] path;
+        int[] matches = new int[16];
+        int count;
+
+        Search(Nodes nodes, char[] query, int maxDistance) {
+            this.nodes = nodes;
+            this.query = query;
+            this.maxDistance = maxDistance;
+            this.rows = new int[nodes.maxDepth + 1][query.length + 1];
+            this.path = new char[nodes.maxDepth + 1];
+        }
+
+        // Descend into every child of a node whose row at the given depth, with the given minimum, is filled in
+        void visitChildren(int node, int depth, int minimum) {
+            int end = nodes.subtreeEnds[node];
+            for (int child = node + 1; child < end; child = nodes.subtreeEnds[child]) {
+                visit(child, depth + 1, minimum);
+            }
+        }
+
+        private void visit(int node, int depth, int parentMinimum) {
+            // Past this depth every prefix is more than maxDistance insertions longer than the query
+            if (depth > query.length + maxDistance) {
+                return;
+            }
+            char c = nodes.labels[node];
+            path[depth] = c;
+            int[] previous = rows[depth - 1];
+            int[] previousPrevious = depth > 1 ? rows[depth - 2] : null;
+            int[] current = rows[depth];
+            int exceeded = maxDistance + 1;
+
+            // Only the cells within maxDistance of the diagonal can stay within the bound, as in
+            // SimilarityKernels.damerauLevenshtein; the cells just outside the band stand in for the rest
+            int from = Math.max(1, depth - maxDistance);
+            int to = Math.min(query.length, depth + maxDistance);
+            current[from - 1] = from == 1 ? Math.min(depth, exceeded) : exceeded;
+            int minimum = current[from - 1];
+            for (int j = from; j <= to; j++) {
+                int cost = c == query[j - 1] ? 0 : 1;
+                int distance = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (depth > 1 && j > 1 && c == query[j - 2] && path[depth - 1] == query[j - 1]) {
+                    distance = Math.min(distance, previousPrevious[j - 2] + cost);
+                }
+                current[j] = Math.min(distance, exceeded);
+                minimum = Math.min(minimum, current[j]);
+            }
+            if (to < query.length) {
+                current[to + 1] = exceeded;
+            }
+
+            // The last cell is only filled in once the band reaches it
+            if (to == query.length && current[to] <= maxDistance && nodes.wordIds[node] >= 0) {
+                add(nodes.wordIds[node]);
+            }
+            // A row can only improve on the row before it, or on the one before that through a transposition
+            if (minimum <= maxDistance || parentMinimum <= maxDistance) {
+                visitChildren(node, depth, minimum);
+            }
+        }
+
+        void add(int id) {
+            if (count == matches.length) {
+                matches = Arrays.copyOf(matches, 2 * count);
+            }
+            matches[count++] = id;
+        }
+    }
+}
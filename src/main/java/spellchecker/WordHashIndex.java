@@ -0,0 +1,90 @@
+package spellchecker;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+
+/**
+ * An open-addressing hash table from words to their ids in a {@link CompactDictionary}, used to confirm
+ * that a word is in the dictionary without a binary search. The table is kept at most half full, so a
+ * lookup usually probes one or two slots, and each probe compares the chars of a single candidate word.
+ * Words are hashed like {@link String#hashCode()}, which a String caches, so a query is not re-hashed.
+ */
+final class WordHashIndex {
+
+    // Slots hold word id + 1, so that zero marks an empty slot
+    private static final int EMPTY = 0;
+
+    private final CompactDictionary dictionary;
+    private final IntBuffer slots;
+    private final int mask;
+
+    private WordHashIndex(CompactDictionary dictionary, IntBuffer slots) {
+        this.dictionary = dictionary;
+        this.slots = slots;
+        this.mask = slots.limit() - 1;
+    }
+
+    /**
+     * Hash every word of a dictionary.
+     * @param dictionary the dictionary words.
+     */
+    WordHashIndex(CompactDictionary dictionary) {
+        this.dictionary = dictionary;
+        int capacity = Integer.highestOneBit(Math.max(1, dictionary.size()) * 2 - 1) << 1;
+        int[] table = new int[capacity];
+        this.mask = capacity - 1;
+        for (int id = 0; id < dictionary.size(); id++) {
+            int slot = slot(dictionary.hashCode(id));
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+        this.slots = IntBuffer.wrap(table);
+    }
+
+    /**
+     * Read an index previously written with {@link #write(DictionaryImage.Writer)}.
+     * @param reader the image being read.
+     * @param dictionary the dictionary the index was built for.
+     * @return the index, backed by the image.
+     */
+    static WordHashIndex read(DictionaryImage.Reader reader, CompactDictionary dictionary) throws IOException {
+        IntBuffer slots = reader.readInts();
+        if (Integer.bitCount(slots.limit()) != 1) {
+            throw new IOException("Corrupt word hash index of " + slots.limit() + " slots");
+        }
+        return new WordHashIndex(dictionary, slots);
+    }
+
+    /**
+     * Write the index into a dictionary image.
+     * @param writer the image being written.
+     */
+    void write(DictionaryImage.Writer writer) throws IOException {
+        writer.writeInts(slots);
+    }
+
+    /**
+     * Find the id of a word.
+     * @param word the word to find.
+     * @return the id of the word, or -1 if the word is not in the dictionary.
+     */
+    int indexOf(String word) {
+        for (int slot = slot(word.hashCode()); ; slot = (slot + 1) & mask) {
+            int entry = slots.get(slot);
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (dictionary.isWord(entry - 1, word)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    // Spread the bits of the hash so that words differing only in their last chars land far apart
+    private int slot(int hash) {
+        int h = hash * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,117 @@
+package spellchecker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+class AVLTreeTest {
+
+    @Test
+    void deleteKeepsTreeBalancedAndOrdered() {
+        Random random = new Random(6);
+        AVLTree<Integer> tree = new AVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 20000; i++) {
+            int value = random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                tree.delete(value);
+                expected.remove(value);
+            } else {
+                tree.insert(value);
+                expected.add(value);
+            }
+            if (i % 500 == 0) {
+                assertValid(tree, expected);
+            }
+        }
+        assertValid(tree, expected);
+    }
+
+    @Test
+    void deleteInAscendingOrderRebalances() {
+        AVLTree<Integer> tree = new AVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 1024; i++) {
+            tree.insert(i);
+            expected.add(i);
+        }
+        // Deleting from one side repeatedly leaves the tree right-heavy unless it rotates
+        for (int i = 0; i < 1000; i++) {
+            tree.delete(i);
+            expected.remove(i);
+            assertValid(tree, expected);
+        }
+    }
+
+    @Test
+    void deleteNodeWithTwoChildrenUsesSuccessor() {
+        AVLTree<String> tree = new AVLTree<>();
+        for (String word : List.of("m", "f", "t", "c", "h", "p", "w")) {
+            tree.insert(word);
+        }
+        tree.delete("m");
+        assertEquals("p", tree.getRoot().data);
+        assertFalse(tree.contains("m", null));
+        assertEquals(List.of("c", "f", "h", "p", "t", "w"), inOrder(tree));
+    }
+
+    @Test
+    void deleteMissingElementChangesNothing() {
+        AVLTree<String> tree = new AVLTree<>();
+        tree.insert("b");
+        tree.insert("a");
+        tree.delete("c");
+        assertEquals(2, tree.size());
+        assertEquals(List.of("a", "b"), inOrder(tree));
+    }
+
+    @Test
+    void deleteFromCopyLeavesOriginal() {
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (int i = 0; i < 100; i++) {
+            tree.insert(i);
+        }
+        AVLTree<Integer> copy = tree.copy();
+        for (int i = 0; i < 100; i += 2) {
+            copy.delete(i);
+        }
+        assertEquals(100, tree.size());
+        assertEquals(50, copy.size());
+        assertTrue(tree.contains(0, null));
+        assertFalse(copy.contains(0, null));
+    }
+
+    private static <T extends Comparable<T>> void assertValid(AVLTree<T> tree, TreeSet<T> expected) {
+        assertEquals(new ArrayList<>(expected), inOrder(tree));
+        assertEquals(expected.size(), tree.size());
+        checkHeights(tree.getRoot());
+        // A balanced tree of n nodes is at most about 1.44 log2(n) high
+        int height = tree.getRoot() == null ? 0 : tree.getRoot().height;
+        assertTrue(height <= 1.45 * Math.log(expected.size() + 2) / Math.log(2), "height " + height);
+    }
+
+    // Check that every stored height is right and no node is out of balance; returns the height
+    private static <T extends Comparable<T>> int checkHeights(AVLTree<T>.Node node) {
+        if (node == null) {
+            return 0;
+        }
+        int left = checkHeights(node.left);
+        int right = checkHeights(node.right);
+        assertTrue(Math.abs(left - right) <= 1, "unbalanced at " + node.data);
+        assertEquals(1 + Math.max(left, right), node.height, "height of " + node.data);
+        return node.height;
+    }
+
+    private static <T extends Comparable<T>> List<T> inOrder(AVLTree<T> tree) {
+        List<T> elements = new ArrayList<>();
+        tree.inOrder(elements::add);
+        return Collections.unmodifiableList(elements);
+    }
+}
@@ -0,0 +1,120 @@
+package spellchecker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CorpusPipelineTest {
+
+    @TempDir
+    Path directory;
+
+    private SpellChecker spellChecker;
+    private final List<Path> files = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path dictionary = Files.write(directory.resolve("words.txt"), List.of("the", "quick", "brown", "fox"));
+        spellChecker = new SpellChecker(2);
+        spellChecker.loadDictionary(dictionary.toString());
+        for (int i = 0; i < 50; i++) {
+            files.add(Files.writeString(directory.resolve("file" + i + ".txt"), "The quikc brown fox, teh fox."));
+        }
+    }
+
+    @Test
+    void writesOneLinePerMisspelling() throws InterruptedException {
+        AtomicInteger lookups = new AtomicInteger();
+        spellChecker.setListener(new SpellCheckerListener() {
+            @Override
+            public void lookupCompleted(long nanos, boolean found) {
+                lookups.incrementAndGet();
+            }
+        });
+        StringWriter output = new StringWriter();
+        CorpusPipeline pipeline = new CorpusPipeline(spellChecker, 3, 4, 1, 1, 1, 2);
+        List<CorpusPipeline.StageStats> stats = pipeline.run(files, output);
+
+        String[] lines = output.toString().split("\n");
+        assertEquals(2 * files.size(), lines.length);
+        JsonObject line = JsonParser.parseString(lines[0]).getAsJsonObject();
+        assertEquals("quikc", line.get("token").getAsString());
+        assertEquals(4, line.get("offset").getAsLong());
+        assertEquals(files.size(), stats.get(0).getProcessed());
+        assertEquals(0, stats.get(3).getFailed());
+        // the, quikc, brown, fox and teh, once per file
+        assertEquals(5 * files.size(), lookups.get());
+    }
+
+    @Test
+    void largeFileIsStreamedInChunks() throws IOException, InterruptedException {
+        // Long enough for several chunks, with misspellings across every chunk boundary
+        StringBuilder text = new StringBuilder();
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; text.length() < 300_000; i++) {
+            if (i % 97 == 0) {
+                expected.add((long) text.length());
+                text.append("quikc");
+            } else {
+                text.append(i % 2 == 0 ? "brown" : "fox");
+            }
+            text.append(i % 13 == 0 ? "\n" : " ");
+        }
+        Path large = Files.writeString(directory.resolve("large.txt"), text);
+
+        StringWriter output = new StringWriter();
+        List<CorpusPipeline.StageStats> stats = new CorpusPipeline(spellChecker, 1, 2, 1, 1, 1, 1)
+                .run(List.of(large), output);
+        List<Long> offsets = new ArrayList<>();
+        for (String line : output.toString().split("\n")) {
+            JsonObject object = JsonParser.parseString(line).getAsJsonObject();
+            assertEquals("quikc", object.get("token").getAsString());
+            offsets.add(object.get("offset").getAsLong());
+        }
+        assertEquals(expected, offsets);
+        assertEquals(1, stats.get(0).getProcessed());
+        assertTrue(stats.get(1).getProcessed() > 1, stats.get(1).toString());
+    }
+
+    @Test
+    void errorInStageStopsRun() {
+        Writer failing = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) {
+                throw new StackOverflowError("writer");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        CorpusPipeline pipeline = new CorpusPipeline(spellChecker, 3, 1, 1, 1, 1, 1);
+        List<Path> corpus = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            corpus.add(files.get(i % files.size()));
+        }
+        StackOverflowError error = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> assertThrows(StackOverflowError.class, () -> pipeline.run(corpus, failing)));
+        assertEquals("writer", error.getMessage());
+    }
+}
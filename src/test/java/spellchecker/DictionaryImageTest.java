@@ -0,0 +1,151 @@
+package spellchecker;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DictionaryImageTest {
+
+    private static final List<String> WORDS = Arrays.asList("apple 120", "apply 40", "ample 7", "maple 15",
+            "people 300", "purple 22", "simple 90", "sample 60", "temple 3", "example 150", "knight 5", "night 80");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void imageRoundTripsSnapshot() throws IOException {
+        Path text = writeDictionary("words.txt");
+        List<StringSimilarityAlgorithm> algorithms = SpellChecker.defaultAlgorithms();
+        DictionarySnapshot built = SpellChecker.readTextDictionary(text.toString(), 2, 2, algorithms);
+        Path image = directory.resolve("words.img");
+        DictionaryImage.write(built, algorithms, image);
+
+        DictionarySnapshot read = DictionaryImage.read(image, 2, 2, algorithms);
+        assertEquals(words(built.dictionary()), words(read.dictionary()));
+        assertEquals(built.frequencyMap(), read.frequencyMap());
+        for (String query : List.of("aple", "nite", "peple", "xyz", "sampel")) {
+            assertArrayEquals(built.deletionIndex().lookup(query), read.deletionIndex().lookup(query), query);
+            PreparedQuery prepared = new PreparedQuery(query, 2, 0.5, algorithms);
+            assertArrayEquals(built.nGramIndex().topKByJaccard(prepared.nGramKeys(), prepared.nGramCount(), 5),
+                    read.nGramIndex().topKByJaccard(prepared.nGramKeys(), prepared.nGramCount(), 5), query);
+        }
+        assertTrue(read.contains("knight", null));
+        assertFalse(read.contains("knigt", null));
+    }
+
+    @Test
+    void spellCheckerLoadsImageWithSameResults() throws IOException {
+        Path text = writeDictionary("words.txt");
+        DictionaryImage.compile(text.toString(), text + DictionaryImage.EXTENSION, 2, 2);
+        Path plain = writeDictionary("plain.txt");
+
+        SpellChecker fromImage = new SpellChecker(2);
+        fromImage.loadDictionary(text.toString());
+        SpellChecker fromText = new SpellChecker(2);
+        fromText.loadDictionary(plain.toString());
+        for (String query : List.of("aple", "nite", "peple", "sampel", "exampel")) {
+            assertEquals(fromText.suggestCorrections(query, 5), fromImage.suggestCorrections(query, 5), query);
+        }
+    }
+
+    @Test
+    void corruptPayloadIsRejected() throws IOException {
+        Path image = compile();
+        byte[] bytes = Files.readAllBytes(image);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(image, bytes);
+
+        IOException error = assertThrows(IOException.class,
+                () -> DictionaryImage.read(image, 2, 2, SpellChecker.defaultAlgorithms()));
+        assertTrue(error.getMessage().contains("checksum"), error.getMessage());
+    }
+
+    @Test
+    void truncatedImageIsRejected() throws IOException {
+        Path image = compile();
+        byte[] bytes = Files.readAllBytes(image);
+        Files.write(image, Arrays.copyOf(bytes, bytes.length - 1));
+
+        IOException error = assertThrows(IOException.class,
+                () -> DictionaryImage.read(image, 2, 2, SpellChecker.defaultAlgorithms()));
+        assertTrue(error.getMessage().contains("Truncated"), error.getMessage());
+    }
+
+    @Test
+    void imageBuiltWithOtherParametersIsRejected() throws IOException {
+        Path image = compile();
+        assertThrows(IOException.class, () -> DictionaryImage.read(image, 3, 2, SpellChecker.defaultAlgorithms()));
+        assertThrows(IOException.class, () -> DictionaryImage.read(image, 2, 1, SpellChecker.defaultAlgorithms()));
+    }
+
+    @Test
+    void corruptImageFallsBackToText() throws IOException {
+        Path image = compile();
+        byte[] bytes = Files.readAllBytes(image);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(image, bytes);
+
+        List<String> rejected = new ArrayList<>();
+        SpellChecker spellChecker = new SpellChecker(2);
+        spellChecker.setListener(new SpellCheckerListener() {
+            @Override
+            public void dictionaryImageRejected(String imageFilename, IOException error) {
+                rejected.add(imageFilename);
+            }
+        });
+        spellChecker.loadDictionary(directory.resolve("words.txt").toString());
+        assertTrue(spellChecker.checkWord("knight"));
+        assertEquals(List.of(image.toString()), rejected);
+    }
+
+    @Test
+    void compilingMissingDictionaryFails() {
+        Path missing = directory.resolve("missing.txt");
+        assertThrows(IOException.class,
+                () -> DictionaryImage.compile(missing.toString(), missing + DictionaryImage.EXTENSION, 2, 2));
+        assertFalse(Files.exists(directory.resolve("missing.txt" + DictionaryImage.EXTENSION)));
+    }
+
+    @Test
+    void writeReplacesImageWithoutLeavingTemporaryFiles() throws IOException {
+        Path image = compile();
+        DictionaryImage.compile(directory.resolve("words.txt").toString(), image.toString(), 2, 2);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of("words.txt", "words.txt.img"),
+                    files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList()));
+        }
+    }
+
+    private Path compile() throws IOException {
+        Path text = writeDictionary("words.txt");
+        Path image = Path.of(text + DictionaryImage.EXTENSION);
+        DictionaryImage.compile(text.toString(), image.toString(), 2, 2);
+        return image;
+    }
+
+    private Path writeDictionary(String name) throws IOException {
+        return Files.write(directory.resolve(name), WORDS, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> words(CompactDictionary dictionary) {
+        List<String> words = new ArrayList<>();
+        for (int id = 0; id < dictionary.size(); id++) {
+            words.add(dictionary.word(id));
+        }
+        return words;
+    }
+}
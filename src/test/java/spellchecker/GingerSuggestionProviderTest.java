@@ -0,0 +1,179 @@
+package spellchecker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GingerSuggestionProviderTest {
+
+    private static final String API_KEY = "secret";
+    private static final String ANSWER = "{\"GingerTheDocumentResult\":{\"Corrections\":[{\"Suggestions\":"
+            + "[{\"Text\":\"Hello\"},{\"Text\":\"help\"}]},{\"Suggestions\":[{\"Text\":\"hello\"}]}]}}";
+    private static final Suggestions LOCAL = new Suggestions(new String[] {"local"}, new double[] {0.5});
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    // remoteCheckCompleted calls as "succeeded/cached"
+    private final List<String> checks = new CopyOnWriteArrayList<>();
+    private final List<GingerSuggestionProvider> providers = new ArrayList<>();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/ok", exchange -> answer(exchange, 200, ANSWER));
+        server.createContext("/held", exchange -> {
+            awaitRelease();
+            answer(exchange, 200, ANSWER);
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            answer(exchange, 200, ANSWER);
+        });
+        server.createContext("/error", exchange -> answer(exchange, 500, "{}"));
+        server.createContext("/malformed", exchange -> answer(exchange, 200, "{\"Unexpected\":true}"));
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        for (GingerSuggestionProvider provider : providers) {
+            provider.close();
+        }
+        release.countDown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void concurrentRequestsShareOneCall() {
+        GingerSuggestionProvider provider = provider("/held", API_KEY, 5000);
+        List<CompletableFuture<Suggestions>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(provider.suggestAsync(i % 2 == 0 ? "helo" : " Helo ", 5));
+        }
+        release.countDown();
+        for (CompletableFuture<Suggestions> future : futures) {
+            assertEquals(List.of("hello", "help"), words(future.join()));
+        }
+        assertEquals(1, requests.get());
+        assertEquals(List.of("true/false"), checks);
+    }
+
+    @Test
+    void repeatIsServedFromCache() {
+        GingerSuggestionProvider provider = provider("/ok", API_KEY, 5000);
+        assertEquals(List.of("hello", "help"), words(provider.suggest("helo", 5)));
+        assertEquals(List.of("hello"), words(provider.suggest("HELO", 1)));
+        assertEquals(1, requests.get());
+        assertEquals(List.of("true/false", "true/true"), checks);
+    }
+
+    @Test
+    void timeoutFallsBack() {
+        GingerSuggestionProvider provider = provider("/slow", API_KEY, 200);
+        assertEquals(List.of("local"), words(provider.suggest("helo", 5)));
+        assertEquals(List.of("false/false"), checks);
+    }
+
+    @Test
+    void serverErrorFallsBackAndIsNotCached() {
+        GingerSuggestionProvider provider = provider("/error", API_KEY, 5000);
+        assertEquals(List.of("local"), words(provider.suggest("helo", 5)));
+        assertEquals(List.of("local"), words(provider.suggest("helo", 5)));
+        assertEquals(2, requests.get());
+        assertEquals(List.of("false/false", "false/false"), checks);
+    }
+
+    @Test
+    void rejectedKeyFallsBack() {
+        GingerSuggestionProvider provider = provider("/ok", "wrong", 5000);
+        assertEquals(List.of("local"), words(provider.suggest("helo", 5)));
+        assertEquals(List.of("false/false"), checks);
+    }
+
+    @Test
+    void malformedAnswerCountsAsFailure() {
+        GingerSuggestionProvider provider = provider("/malformed", API_KEY, 5000);
+        assertEquals(List.of("local"), words(provider.suggest("helo", 5)));
+        assertEquals(List.of("false/false"), checks);
+    }
+
+    @Test
+    void missingKeyNeverCallsService() {
+        GingerSuggestionProvider provider = provider("/ok", null, 5000);
+        assertEquals(List.of("local"), words(provider.suggest("helo", 5)));
+        assertEquals(0, requests.get());
+        assertTrue(checks.isEmpty());
+    }
+
+    private GingerSuggestionProvider provider(String path, String apiKey, long timeoutMillis) {
+        String endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + path;
+        GingerSuggestionProvider provider = new GingerSuggestionProvider(endpoint, apiKey,
+                (word, maxSuggestions) -> LOCAL.prefix(maxSuggestions), timeoutMillis, 16);
+        provider.setListener(new SpellCheckerListener() {
+            @Override
+            public void remoteCheckCompleted(long nanos, boolean succeeded, boolean cached) {
+                checks.add(succeeded + "/" + cached);
+            }
+        });
+        providers.add(provider);
+        return provider;
+    }
+
+    private void answer(HttpExchange exchange, int status, String body) throws IOException {
+        requests.incrementAndGet();
+        exchange.getRequestBody().readAllBytes();
+        if (!API_KEY.equals(exchange.getRequestHeaders().getFirst("X-RapidAPI-Key"))) {
+            status = 403;
+            body = "{\"message\":\"You are not subscribed to this API.\"}";
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static List<String> words(Suggestions suggestions) {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < suggestions.size(); i++) {
+            words.add(suggestions.getWord(i));
+        }
+        return words;
+    }
+}
@@ -0,0 +1,41 @@
+package spellchecker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class PreparedQueryTest {
+
+    private final List<StringSimilarityAlgorithm> algorithms = SpellChecker.defaultAlgorithms();
+
+    @Test
+    void keysAreEncodedForEveryKeyBasedAlgorithm() {
+        PreparedQuery query = new PreparedQuery("nite", 2, 0.7, algorithms);
+        for (int i = 0; i < algorithms.size(); i++) {
+            assertEquals(algorithms.get(i).encodeKey("nite"), query.key(i), algorithms.get(i).getName());
+        }
+    }
+
+    @Test
+    void algorithmsThePlanDoesNotRunAreNotEncoded() {
+        ScoringPlan plan = ScoringPlan.of(algorithms,
+                new ScoringConfig(0.7, Set.of("damerau-levenshtein", "metaphone"), Collections.emptyMap()));
+        PreparedQuery query = new PreparedQuery("nite", 2, plan, algorithms);
+        for (int i = 0; i < algorithms.size(); i++) {
+            StringSimilarityAlgorithm algorithm = algorithms.get(i);
+            if (algorithm.getName().equals("soundex")) {
+                assertNull(query.key(i));
+                // Still available on request, encoded then
+                assertEquals(algorithm.encodeKey("nite"), query.getKey(algorithm));
+            } else if (algorithm.getName().equals("metaphone")) {
+                assertNotNull(query.key(i));
+            }
+        }
+        assertEquals(0.7, query.getMinSimilarity());
+    }
+}
@@ -0,0 +1,170 @@
+package spellchecker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cedarsoftware.util.StringUtilities;
+import java.util.Random;
+import org.apache.commons.text.similarity.JaroWinklerSimilarity;
+import org.junit.jupiter.api.Test;
+
+class SimilarityKernelsTest {
+
+    private final SimilarityKernels.Scratch scratch = SimilarityKernels.scratch();
+
+    @Test
+    void damerauLevenshteinMatchesLibrary() {
+        Random random = new Random(1);
+        for (int i = 0; i < 20000; i++) {
+            String a = randomWord(random);
+            String b = random.nextBoolean() ? randomWord(random) : misspell(a, random);
+            assertEquals(StringUtilities.damerauLevenshteinDistance(a, b), distance(a, b), a + " / " + b);
+        }
+    }
+
+    @Test
+    void damerauLevenshteinCountsAdjacentTranspositionOnce() {
+        assertEquals(1, distance("ab", "ba"));
+        assertEquals(1, distance("receive", "recieve"));
+        // Optimal string alignment does not edit a transposed pair again
+        assertEquals(3, distance("ca", "abc"));
+        assertEquals(3, distance("", "abc"));
+        assertEquals(0, distance("same", "same"));
+    }
+
+    @Test
+    void bandedDistanceCutsOffAboveBound() {
+        Random random = new Random(2);
+        for (int i = 0; i < 20000; i++) {
+            String a = randomWord(random);
+            String b = random.nextBoolean() ? randomWord(random) : misspell(a, random);
+            int exact = distance(a, b);
+            for (int maxDistance = 0; maxDistance <= 4; maxDistance++) {
+                assertEquals(Math.min(exact, maxDistance + 1), boundedDistance(a, b, maxDistance),
+                        a + " / " + b + " within " + maxDistance);
+            }
+        }
+    }
+
+    @Test
+    void bandedDistanceRejectsLengthDifferenceAboveBound() {
+        assertEquals(2, boundedDistance("a", "abcdef", 1));
+        assertEquals(3, boundedDistance("", "abc", 3));
+        assertEquals(4, boundedDistance("", "abcd", 3));
+    }
+
+    @Test
+    void bandedDistanceKeepsTranspositionAtBandEdge() {
+        assertEquals(1, boundedDistance("ab", "ba", 1));
+        assertEquals(2, boundedDistance("abcd", "badc", 2));
+        assertEquals(1, boundedDistance("abcd", "badc", 0));
+    }
+
+    @Test
+    void jaroWinklerMatchesCommonsText() {
+        JaroWinklerSimilarity library = new JaroWinklerSimilarity();
+        Random random = new Random(3);
+        for (int i = 0; i < 20000; i++) {
+            String a = randomWord(random);
+            String b = random.nextBoolean() ? randomWord(random) : misspell(a, random);
+            char[] ac = a.toCharArray();
+            char[] bc = b.toCharArray();
+            assertEquals(library.apply(a, b), SimilarityKernels.jaroWinkler(ac, ac.length, bc, bc.length, scratch),
+                    0.0, a + " / " + b);
+        }
+    }
+
+    @Test
+    void nGramKeysAreSortedAndDistinct() {
+        char[] word = "banana".toCharArray();
+        int[] keys = new int[word.length];
+        int count = SimilarityKernels.nGramKeys(word, word.length, 2, keys);
+        // ba, an, na
+        assertEquals(3, count);
+        for (int i = 1; i < count; i++) {
+            assertNotEquals(keys[i - 1], keys[i]);
+            assertTrue(keys[i - 1] < keys[i]);
+        }
+    }
+
+    @Test
+    void packedBigramsDoNotCollide() {
+        int[] first = new int[1];
+        int[] second = new int[1];
+        for (char a = 'a'; a <= 'z'; a++) {
+            for (char b = 'a'; b <= 'z'; b++) {
+                SimilarityKernels.nGramKeys(new char[] {a, b}, 2, 2, first);
+                SimilarityKernels.nGramKeys(new char[] {b, a}, 2, 2, second);
+                assertEquals(a == b, first[0] == second[0]);
+            }
+        }
+    }
+
+    @Test
+    void jaccardOfNGramKeys() {
+        assertEquals(1.0, jaccard("night", "night", 2), 0.0);
+        // ni ig gh ht against na ac ch ht: one shared bigram of seven
+        assertEquals(1.0 / 7, jaccard("night", "nacht", 2), 1e-12);
+        assertEquals(0.0, jaccard("abc", "xyz", 3), 0.0);
+    }
+
+    private int distance(String a, String b) {
+        return SimilarityKernels.damerauLevenshtein(a.toCharArray(), a.length(), b.toCharArray(), b.length(), scratch);
+    }
+
+    private int boundedDistance(String a, String b, int maxDistance) {
+        return SimilarityKernels.damerauLevenshtein(a.toCharArray(), a.length(), b.toCharArray(), b.length(),
+                maxDistance, scratch);
+    }
+
+    private static double jaccard(String a, String b, int n) {
+        int[] aKeys = new int[a.length() + 1];
+        int[] bKeys = new int[b.length() + 1];
+        int aCount = SimilarityKernels.nGramKeys(a.toCharArray(), a.length(), n, aKeys);
+        int bCount = SimilarityKernels.nGramKeys(b.toCharArray(), b.length(), n, bKeys);
+        return SimilarityKernels.jaccard(aKeys, aCount, bKeys, bCount);
+    }
+
+    // Words over a small alphabet, so that random pairs share many chars
+    static String randomWord(Random random) {
+        int length = random.nextInt(9);
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(5)));
+        }
+        return word.toString();
+    }
+
+    // Apply up to three random insertions, deletions, substitutions and transpositions
+    static String misspell(String word, Random random) {
+        StringBuilder result = new StringBuilder(word);
+        int edits = random.nextInt(4);
+        for (int e = 0; e < edits; e++) {
+            int position = result.length() > 0 ? random.nextInt(result.length()) : 0;
+            char c = (char) ('a' + random.nextInt(5));
+            switch (random.nextInt(4)) {
+                case 0:
+                    result.insert(position, c);
+                    break;
+                case 1:
+                    if (result.length() > 0) {
+                        result.deleteCharAt(position);
+                    }
+                    break;
+                case 2:
+                    if (result.length() > 0) {
+                        result.setCharAt(position, c);
+                    }
+                    break;
+                default:
+                    if (position + 1 < result.length()) {
+                        char swapped = result.charAt(position);
+                        result.setCharAt(position, result.charAt(position + 1));
+                        result.setCharAt(position + 1, swapped);
+                    }
+            }
+        }
+        return result.toString();
+    }
+}
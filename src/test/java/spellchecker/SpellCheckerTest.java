@@ -0,0 +1,386 @@
+package spellchecker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpellCheckerTest {
+
+    private static final int MAX_EDIT_DISTANCE = 2;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void suggestionsMatchFullScanWithinEditDistance() throws IOException {
+        Random random = new Random(6);
+        List<String> words = randomWords(random, 5000);
+        SpellChecker spellChecker = load(words);
+        List<StringSimilarityAlgorithm> algorithms = SpellChecker.defaultAlgorithms();
+
+        for (int q = 0; q < 200; q++) {
+            String query = misspell(words.get(random.nextInt(words.size())), random);
+            int limit = 1 + random.nextInt(10);
+            Suggestions suggestions = spellChecker.suggest(query, limit);
+            Map<String, Double> reference = referenceScores(query, words, algorithms);
+
+            // Every suggestion is scored exactly as the full scan scores it, best first
+            for (int i = 0; i < suggestions.size(); i++) {
+                assertEquals(reference.get(suggestions.getWord(i)), suggestions.getScore(i), 1e-12,
+                        query + " -> " + suggestions.getWord(i));
+                assertTrue(i == 0 || suggestions.getScore(i - 1) >= suggestions.getScore(i), query);
+            }
+
+            // and no word within the edit distance that the full scan ranks above the weakest suggestion is missed
+            Set<String> suggested = new HashSet<>();
+            for (int i = 0; i < suggestions.size(); i++) {
+                suggested.add(suggestions.getWord(i));
+            }
+            double weakest = suggestions.size() == limit ? suggestions.getScore(limit - 1) : Double.NEGATIVE_INFINITY;
+            for (Map.Entry<String, Double> entry : reference.entrySet()) {
+                if (entry.getValue() > weakest && distance(query, entry.getKey()) <= MAX_EDIT_DISTANCE) {
+                    assertTrue(suggested.contains(entry.getKey()), query + " misses " + entry.getKey());
+                }
+            }
+        }
+    }
+
+    @Test
+    void wordsOutsideCandidatesAreNotSuggested() throws IOException {
+        // "badc" passes the threshold by Jaro-Winkler alone, but it is 2 edits from "abcd" and shares no bigram or
+        // phonetic code with it, so it is never a candidate and fewer suggestions than asked for are returned
+        SpellChecker spellChecker = new SpellChecker(2, 1);
+        spellChecker.loadDictionary(Files.write(directory.resolve("words.txt"), List.of("abcd", "badc")).toString());
+        assertTrue(referenceScores("abce", List.of("badc"), SpellChecker.defaultAlgorithms()).containsKey("badc"));
+
+        Suggestions suggestions = spellChecker.suggest("abce", 5);
+        assertEquals(1, suggestions.size());
+        assertEquals("abcd", suggestions.getWord(0));
+    }
+
+    @Test
+    void concurrentReadersSeeOnlyPublishedSnapshots() throws Exception {
+        Random random = new Random(7);
+        List<String> words = randomWords(random, 300);
+        List<String> withExtra = new ArrayList<>(words);
+        withExtra.add("extra");
+        List<String> queries = List.of("extr", "exrta", misspell(words.get(0), random), misspell(words.get(1), random));
+
+        // "extra" is either absent, in the overlay or, once the overlay is folded, indexed; every query must match
+        // one of those three dictionaries
+        SpellChecker overlay = load(words);
+        overlay.addWord("extra");
+        List<SpellChecker> references = List.of(load(words), overlay, load(withExtra));
+        List<Set<Map<String, Double>>> expected = new ArrayList<>();
+        for (String query : queries) {
+            Set<Map<String, Double>> allowed = new HashSet<>();
+            for (SpellChecker reference : references) {
+                allowed.add(scores(reference.suggest(query, 100)));
+            }
+            expected.add(allowed);
+        }
+
+        Path file = directory.resolve("words.txt");
+        SpellChecker spellChecker = load(words);
+        ExecutorService threads = Executors.newFixedThreadPool(5);
+        AtomicBoolean done = new AtomicBoolean();
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                readers.add(threads.submit(() -> {
+                    for (int i = 0; !done.get() || i < 50; i++) {
+                        assertTrue(spellChecker.checkWord(words.get(i % words.size())));
+                        assertFalse(spellChecker.checkWord("missing"));
+                        int q = i % queries.size();
+                        Suggestions suggestions = spellChecker.suggest(queries.get(q), 100);
+                        for (int s = 1; s < suggestions.size(); s++) {
+                            assertTrue(suggestions.getScore(s - 1) >= suggestions.getScore(s));
+                        }
+                        assertTrue(expected.get(q).contains(scores(suggestions)), queries.get(q));
+                    }
+                    return null;
+                }));
+            }
+            Future<?> writer = threads.submit(() -> {
+                try {
+                    // Over 256 changes, so the overlay is folded into the indexes on the way
+                    for (int i = 0; i < 100; i++) {
+                        spellChecker.addWord("extra");
+                        spellChecker.removeWord("extra");
+                        rewrite(file, withExtra, 2 * i + 1);
+                        assertTrue(spellChecker.reloadDictionary());
+                        rewrite(file, words, 2 * i + 2);
+                        assertTrue(spellChecker.reloadDictionary());
+                    }
+                } finally {
+                    done.set(true);
+                }
+                return null;
+            });
+            writer.get(60, TimeUnit.SECONDS);
+            for (Future<?> reader : readers) {
+                reader.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            done.set(true);
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    void addedAndRemovedWordsAreFoundAndSuggested() throws IOException {
+        SpellChecker spellChecker = load(List.of("apple", "maple", "ample"));
+        spellChecker.addWord(" Aple ");
+        spellChecker.removeWord("maple");
+        assertTrue(spellChecker.checkWord("aple"));
+        assertFalse(spellChecker.checkWord("maple"));
+        assertEquals("aple", spellChecker.suggest("aple", 3).getWord(0));
+        assertFalse(words(spellChecker.suggest("mapel", 3)).contains("maple"));
+
+        spellChecker.addWord("maple");
+        assertTrue(spellChecker.checkWord("maple"));
+        assertTrue(words(spellChecker.suggest("mapel", 3)).contains("maple"));
+    }
+
+    @Test
+    void overlayIsFoldedIntoIndexes() throws IOException {
+        SpellChecker spellChecker = load(List.of("apple"));
+        List<String> added = randomWords(new Random(8), 300);
+        for (String word : added) {
+            spellChecker.addWord(word);
+        }
+        assertTrue(spellChecker.snapshot().overlaySize() <= 256, "overlay of " + spellChecker.snapshot().overlaySize());
+        for (String word : added) {
+            assertTrue(spellChecker.checkWord(word), word);
+        }
+        assertEquals(added.get(0), spellChecker.suggest(added.get(0), 1).getWord(0));
+    }
+
+    @Test
+    void reloadAppliesDifferenceWithFile() throws IOException {
+        Path file = directory.resolve("words.txt");
+        SpellChecker spellChecker = load(List.of("apple", "maple", "ample"));
+        spellChecker.addWord("aple");
+        assertFalse(spellChecker.reloadDictionary());
+
+        rewrite(file, List.of("apple", "ample", "sample"), 1);
+        assertTrue(spellChecker.reloadDictionary());
+        assertEquals(List.of(true, false, true, true, false), List.of(spellChecker.checkWord("apple"),
+                spellChecker.checkWord("maple"), spellChecker.checkWord("ample"), spellChecker.checkWord("sample"),
+                spellChecker.checkWord("aple")));
+        assertFalse(spellChecker.reloadDictionary());
+    }
+
+    @Test
+    void failedReloadKeepsDictionary() throws IOException {
+        Path file = directory.resolve("words.txt");
+        SpellChecker spellChecker = load(List.of("apple"));
+        Files.delete(file);
+        Files.createDirectory(file);
+        assertThrows(IOException.class, spellChecker::reloadDictionary);
+        assertTrue(spellChecker.checkWord("apple"));
+    }
+
+    @Test
+    void watcherWaitsForFileToSettle() throws Exception {
+        Path file = directory.resolve("words.txt");
+        SpellChecker spellChecker = load(List.of("apple", "maple"));
+        try (Closeable watch = spellChecker.watchDictionary()) {
+            // A writer that truncates the file before writing it out again must not remove words
+            Files.write(file, List.of("apple"));
+            for (long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100); System.nanoTime() < end; ) {
+                assertTrue(spellChecker.checkWord("maple"));
+                Thread.sleep(1);
+            }
+            Files.write(file, List.of("apple", "maple", "ample"));
+            await(() -> spellChecker.checkWord("ample"));
+            assertTrue(spellChecker.checkWord("maple"));
+        }
+    }
+
+    @Test
+    void watcherReportsFailedReloadAndKeepsWatching() throws Exception {
+        Path file = directory.resolve("words.txt");
+        SpellChecker spellChecker = load(List.of("apple"));
+        List<Exception> errors = new CopyOnWriteArrayList<>();
+        spellChecker.setListener(new SpellCheckerListener() {
+            @Override
+            public void dictionaryReloadFailed(String dictionaryFilename, Exception error) {
+                errors.add(error);
+            }
+        });
+        try (Closeable watch = spellChecker.watchDictionary()) {
+            Files.delete(file);
+            Files.createDirectory(file);
+            await(() -> !errors.isEmpty());
+            assertTrue(errors.get(0) instanceof IOException, errors.toString());
+            assertTrue(spellChecker.checkWord("apple"));
+
+            Files.delete(file);
+            Files.write(file, List.of("apple", "ample"));
+            await(() -> spellChecker.checkWord("ample"));
+        }
+    }
+
+    @Test
+    void documentLookupsAreReportedToListener() throws IOException {
+        SpellChecker spellChecker = load(List.of("the", "quick", "fox"));
+        List<Boolean> lookups = new CopyOnWriteArrayList<>();
+        spellChecker.setListener(new SpellCheckerListener() {
+            @Override
+            public void lookupCompleted(long nanos, boolean found) {
+                lookups.add(found);
+            }
+        });
+        assertEquals(1, spellChecker.checkDocument(new StringReader("The quikc fox, the fox"), 3).count());
+        // Each distinct word is looked up once
+        assertEquals(List.of(false, true, true), lookups.stream().sorted().collect(Collectors.toList()));
+    }
+
+    private SpellChecker load(List<String> words) throws IOException {
+        SpellChecker spellChecker = new SpellChecker(2, MAX_EDIT_DISTANCE);
+        spellChecker.loadDictionary(Files.write(directory.resolve("words.txt"), words).toString());
+        return spellChecker;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    private static List<String> words(Suggestions suggestions) {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < suggestions.size(); i++) {
+            words.add(suggestions.getWord(i));
+        }
+        return words;
+    }
+
+    // Write a dictionary file with a modification time that tells it apart from the previous version
+    private static void rewrite(Path file, List<String> words, int version) throws IOException {
+        Files.write(file, words);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000_000_000L + version * 1000L));
+    }
+
+    private static Map<String, Double> scores(Suggestions suggestions) {
+        Map<String, Double> scores = new HashMap<>();
+        for (int i = 0; i < suggestions.size(); i++) {
+            scores.put(suggestions.getWord(i), suggestions.getScore(i));
+        }
+        assertTrue(scores.size() < 100, "truncated suggestions");
+        return scores;
+    }
+
+    // The score of every word the way the full dictionary scan computed it before candidates were generated:
+    // the weighted average of the similarities passing the threshold, averaged with the bigram Jaccard
+    // similarity. Words no algorithm passes for are left out.
+    private static Map<String, Double> referenceScores(String query, List<String> words,
+                                                       List<StringSimilarityAlgorithm> algorithms) {
+        ScoringConfig config = ScoringConfig.DEFAULT;
+        Map<String, Double> scores = new HashMap<>();
+        for (String word : words) {
+            double totalWeightedScore = 0.0;
+            double totalWeight = 0.0;
+            for (StringSimilarityAlgorithm algorithm : algorithms) {
+                double similarity = algorithm.calculateSimilarity(query, word);
+                if (config.isEnabled(algorithm) && similarity >= config.getThreshold()) {
+                    totalWeightedScore += similarity * config.getWeight(algorithm);
+                    totalWeight += config.getWeight(algorithm);
+                }
+            }
+            if (totalWeight > 0) {
+                double score = Math.min(totalWeightedScore / totalWeight, 1.0);
+                scores.put(word, (score + bigramJaccard(query, word)) / 2.0);
+            }
+        }
+        return scores;
+    }
+
+    private static double bigramJaccard(String a, String b) {
+        Set<String> aGrams = bigrams(a);
+        Set<String> bGrams = bigrams(b);
+        Set<String> union = new HashSet<>(aGrams);
+        union.addAll(bGrams);
+        aGrams.retainAll(bGrams);
+        return (double) aGrams.size() / union.size();
+    }
+
+    private static Set<String> bigrams(String word) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 2 <= word.length(); i++) {
+            grams.add(word.substring(i, i + 2));
+        }
+        return grams;
+    }
+
+    private static int distance(String a, String b) {
+        return SimilarityKernels.damerauLevenshtein(a.toCharArray(), a.length(), b.toCharArray(), b.length(),
+                SimilarityKernels.scratch());
+    }
+
+    private static List<String> randomWords(Random random, int count) {
+        TreeSet<String> words = new TreeSet<>();
+        while (words.size() < count) {
+            int length = 3 + random.nextInt(7);
+            StringBuilder word = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                word.append((char) ('a' + random.nextInt(12)));
+            }
+            words.add(word.toString());
+        }
+        return new ArrayList<>(words);
+    }
+
+    // Apply one or two random substitutions, deletions or transpositions, keeping at least two letters
+    private static String misspell(String word, Random random) {
+        StringBuilder result = new StringBuilder(word);
+        int edits = 1 + random.nextInt(2);
+        for (int e = 0; e < edits; e++) {
+            int position = random.nextInt(result.length() - 1);
+            switch (random.nextInt(3)) {
+                case 0:
+                    result.setCharAt(position, (char) ('a' + random.nextInt(12)));
+                    break;
+                case 1:
+                    if (result.length() > 2) {
+                        result.deleteCharAt(position);
+                    }
+                    break;
+                default:
+                    char swapped = result.charAt(position);
+                    result.setCharAt(position, result.charAt(position + 1));
+                    result.setCharAt(position + 1, swapped);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,122 @@
+package spellchecker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SuggestionCacheTest {
+
+    private final List<StringSimilarityAlgorithm> algorithms = SpellChecker.defaultAlgorithms();
+    private final DictionarySnapshot snapshot = DictionarySnapshot.build(List.of("apple", "maple", "ample"), null, 2,
+            2, algorithms);
+    private final ScoringPlan plan = ScoringPlan.of(algorithms, ScoringConfig.DEFAULT);
+    private final Suggestions suggestions = new Suggestions(new String[] {"apple", "ample"}, new double[] {0.9, 0.8});
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void hitForSameSnapshotAndPlan() {
+        SuggestionCache cache = new SuggestionCache(1 << 20);
+        cache.put("aple", 8, snapshot, plan, suggestions);
+        assertSame(suggestions, cache.get("aple", 8, snapshot, plan));
+        assertNull(cache.get("aple", 16, snapshot, plan));
+        assertNull(cache.get("appel", 8, snapshot, plan));
+        assertEquals(1, cache.stats().getHits());
+        assertEquals(2, cache.stats().getMisses());
+    }
+
+    @Test
+    void missForAnotherSnapshot() {
+        SuggestionCache cache = new SuggestionCache(1 << 20);
+        cache.put("aple", 8, snapshot, plan, suggestions);
+        DictionarySnapshot changed = snapshot.withChanges(List.of("aple"), Collections.emptyList());
+        assertNull(cache.get("aple", 8, changed, plan));
+        // The stale entry is dropped rather than kept for the old snapshot
+        assertNull(cache.get("aple", 8, snapshot, plan));
+        assertEquals(0, cache.stats().getEntries());
+    }
+
+    @Test
+    void missForAnotherPlanEvenIfEqual() {
+        SuggestionCache cache = new SuggestionCache(1 << 20);
+        cache.put("aple", 8, snapshot, plan, suggestions);
+        assertNull(cache.get("aple", 8, snapshot, ScoringPlan.of(algorithms, ScoringConfig.DEFAULT)));
+    }
+
+    @Test
+    void bucketsArePowersOfTwo() {
+        assertEquals(8, SuggestionCache.bucket(0));
+        assertEquals(8, SuggestionCache.bucket(1));
+        assertEquals(8, SuggestionCache.bucket(8));
+        assertEquals(16, SuggestionCache.bucket(9));
+        assertEquals(SuggestionCache.MAX_BUCKET, SuggestionCache.bucket(SuggestionCache.MAX_BUCKET));
+        assertEquals(-1, SuggestionCache.bucket(SuggestionCache.MAX_BUCKET + 1));
+    }
+
+    @Test
+    void evictsBeyondBudget() {
+        SuggestionCache cache = new SuggestionCache(16 * 1024);
+        for (int i = 0; i < 1000; i++) {
+            cache.put("word" + i, 8, snapshot, plan, suggestions);
+        }
+        CacheStats stats = cache.stats();
+        assertTrue(stats.getEvictions() > 0);
+        assertTrue(stats.getBytes() <= 16 * 1024, stats.toString());
+        assertEquals(1000, stats.getEntries() + stats.getEvictions());
+    }
+
+    @Test
+    void spellCheckerServesNoStaleSuggestions() throws IOException {
+        Path dictionary = Files.write(directory.resolve("words.txt"), List.of("apple", "maple", "ample"));
+        SpellChecker spellChecker = new SpellChecker(2);
+        spellChecker.loadDictionary(dictionary.toString());
+
+        List<String> before = words(spellChecker.suggestCorrections("aple", 2));
+        assertEquals("apple", before.get(0));
+        assertEquals(before, words(spellChecker.suggestCorrections("aple", 2)));
+        assertEquals(1, spellChecker.getCacheStats().getHits());
+
+        spellChecker.addWord("aple");
+        assertEquals("aple", words(spellChecker.suggestCorrections("aple", 2)).get(0));
+        spellChecker.removeWord("aple");
+        assertEquals(before, words(spellChecker.suggestCorrections("aple", 2)));
+
+        spellChecker.setScoringConfig(new ScoringConfig(0.99, null, Collections.emptyMap()));
+        // A stricter threshold leaves fewer suggestions, so the cached list is no longer served
+        assertTrue(spellChecker.suggestCorrections("aple", 2).size() < before.size());
+    }
+
+    @Test
+    void spellCheckerWithoutCacheComputesOnlyLimit() throws IOException {
+        Path dictionary = Files.write(directory.resolve("words.txt"),
+                List.of("apple", "maple", "ample", "apply", "applet", "dapple", "sample", "staple", "amble"));
+        SpellChecker cached = new SpellChecker(2);
+        cached.loadDictionary(dictionary.toString());
+        SpellChecker uncached = new SpellChecker(2, 2, ForkJoinPool.commonPool(), 1, 0);
+        uncached.loadDictionary(dictionary.toString());
+        assertNull(uncached.getCacheStats());
+
+        for (int limit = 0; limit <= 10; limit++) {
+            List<String> expected = words(cached.suggestCorrections("aple", limit));
+            assertEquals(Math.min(limit, 9), expected.size());
+            assertEquals(expected, words(uncached.suggestCorrections("aple", limit)));
+        }
+    }
+
+    private static List<String> words(List<Map.Entry<String, Double>> suggestions) {
+        return suggestions.stream().map(Map.Entry::getKey).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,89 @@
+package spellchecker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TokenizerTest {
+
+    @Test
+    void tokensAndOffsets() throws IOException {
+        assertEquals(List.of("Hello@0", "world@7", "don't@14", "stop@20"),
+                tokens(new StringReader("Hello, world! don't stop.")));
+    }
+
+    @Test
+    void runsWithDigitsAreSkipped() throws IOException {
+        assertEquals(List.of("play@0", "files@13"), tokens(new StringReader("play mp3 2nd files")));
+    }
+
+    @Test
+    void apostrophesOnlyJoinLetters() throws IOException {
+        assertEquals(List.of("rock@1", "n@7", "roll@10", "dogs@16", "o'clock@22"),
+                tokens(new StringReader("'rock 'n' roll, dogs' o'clock")));
+        assertEquals(List.of("end@0"), tokens(new StringReader("end'")));
+    }
+
+    @Test
+    void offsetsCountCharsAcrossBufferRefills() throws IOException {
+        StringBuilder text = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; text.length() < 40000; i++) {
+            String word = i % 7 == 0 ? "isn't" : "word" + (char) ('a' + i % 26);
+            expected.add(word + "@" + text.length());
+            text.append(word).append(i % 3 == 0 ? " \n " : " ");
+        }
+        assertEquals(expected, tokens(new StringReader(text.toString())));
+        assertEquals(expected, tokens(new TrickleReader(text.toString(), 5)));
+    }
+
+    @Test
+    void apostropheAtBufferEnd() throws IOException {
+        // The apostrophe is the last char of the first buffer, so the letter after it is read into a new one
+        String text = "x".repeat(8187) + " don't go";
+        assertEquals(List.of("x".repeat(8187) + "@0", "don't@8188", "go@8194"), tokens(new StringReader(text)));
+        String trailing = "x".repeat(8186) + " dogs'";
+        assertEquals(List.of("x".repeat(8186) + "@0", "dogs@8187"), tokens(new StringReader(trailing)));
+    }
+
+    private static List<String> tokens(Reader reader) throws IOException {
+        Tokenizer tokenizer = new Tokenizer(reader);
+        List<String> tokens = new ArrayList<>();
+        while (tokenizer.next()) {
+            tokens.add(tokenizer.token() + "@" + tokenizer.offset());
+        }
+        return tokens;
+    }
+
+    // Returns at most a few chars per read, as a slow network stream might
+    private static final class TrickleReader extends Reader {
+        private final String text;
+        private final int chunk;
+        private int position;
+
+        TrickleReader(String text, int chunk) {
+            this.text = text;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position == text.length()) {
+                return -1;
+            }
+            int count = Math.min(Math.min(length, chunk), text.length() - position);
+            text.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package spellchecker;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+class TrieIndexTest {
+
+    @Test
+    void lookupFindsEveryWordWithinDistance() {
+        Random random = new Random(4);
+        CompactDictionary dictionary = randomDictionary(random, 3000);
+        TrieIndex trie = new TrieIndex(dictionary);
+        for (int i = 0; i < 300; i++) {
+            String query = SimilarityKernelsTest.randomWord(random);
+            for (int maxDistance = 0; maxDistance <= 3; maxDistance++) {
+                assertArrayEquals(bruteForce(dictionary, query, maxDistance), trie.lookup(query, maxDistance),
+                        query + " within " + maxDistance);
+            }
+        }
+    }
+
+    @Test
+    void lookupAgreesWithDeletionIndex() {
+        Random random = new Random(5);
+        CompactDictionary dictionary = randomDictionary(random, 3000);
+        TrieIndex trie = new TrieIndex(dictionary);
+        DeletionIndex deletions = new DeletionIndex(dictionary, 2, 7);
+        for (int i = 0; i < 300; i++) {
+            String query = SimilarityKernelsTest.misspell(dictionary.word(random.nextInt(dictionary.size())), random);
+            assertArrayEquals(deletions.lookup(query), trie.lookup(query, 2), query);
+        }
+    }
+
+    @Test
+    void lookupOfPrefixesAndEmptyWord() {
+        CompactDictionary dictionary = CompactDictionary.of(List.of("", "a", "ab", "abc", "abd", "b"));
+        TrieIndex trie = new TrieIndex(dictionary);
+        assertEquals(List.of("", "a", "b"), words(dictionary, trie.lookup("", 1)));
+        assertEquals(List.of("ab", "abc", "abd"), words(dictionary, trie.lookup("abx", 1)));
+        assertEquals(List.of("abc"), words(dictionary, trie.lookup("abc", 0)));
+        assertEquals(List.of("", "a", "ab", "abc", "abd", "b"), words(dictionary, trie.lookup("ba", 2)));
+    }
+
+    @Test
+    void negativeDistanceMatchesNothing() {
+        TrieIndex trie = new TrieIndex(CompactDictionary.of(List.of("word")));
+        assertEquals(0, trie.lookup("word", -1).length);
+    }
+
+    private static CompactDictionary randomDictionary(Random random, int size) {
+        TreeSet<String> words = new TreeSet<>();
+        while (words.size() < size) {
+            String word = SimilarityKernelsTest.randomWord(random);
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return CompactDictionary.of(words);
+    }
+
+    private static int[] bruteForce(CompactDictionary dictionary, String query, int maxDistance) {
+        SimilarityKernels.Scratch scratch = SimilarityKernels.scratch();
+        List<Integer> matches = new ArrayList<>();
+        for (int id = 0; id < dictionary.size(); id++) {
+            String word = dictionary.word(id);
+            if (SimilarityKernels.damerauLevenshtein(query.toCharArray(), query.length(), word.toCharArray(),
+                    word.length(), scratch) <= maxDistance) {
+                matches.add(id);
+            }
+        }
+        return matches.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static List<String> words(CompactDictionary dictionary, int[] ids) {
+        List<String> words = new ArrayList<>();
+        for (int id : ids) {
+            words.add(dictionary.word(id));
+        }
+        return words;
+    }
+}